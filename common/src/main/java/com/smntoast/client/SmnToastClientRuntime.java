@@ -1,25 +1,37 @@
 package com.smntoast.client;
 
 import com.smntoast.SmnToast;
+import com.smntoast.client.jfr.ToastEvent;
+import com.smntoast.client.lyrics.LyricsDisplay;
+import com.smntoast.client.media.CommandTrace;
 import com.smntoast.client.media.MediaListener;
+import com.smntoast.client.media.ProcessSupervisor;
 import com.smntoast.client.media.TrackInfo;
+import com.smntoast.client.network.NowPlayingShareClient;
 import com.smntoast.client.toast.MusicToast;
+import com.smntoast.network.PeerTrackPayload;
 import net.minecraft.client.KeyMapping;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.world.entity.player.Player;
 
 public class SmnToastClientRuntime {
     private static final long TOAST_COOLDOWN_MS = 6500L;
+    private static final long PEER_TOAST_COOLDOWN_MS = 10000L;
 
     private final KeyMapping showMusicToastKey;
+    private final NowPlayingShareClient shareClient;
     private MediaListener mediaListener;
+    private LyricsDisplay lyricsDisplay;
     private String lastTrackId = "";
     private boolean startupAlertPending = false;
     private ClientLevel lastLevel = null;
     private long lastToastTime = 0;
+    private long lastPeerToastTime = 0;
 
-    public SmnToastClientRuntime(KeyMapping showMusicToastKey) {
+    public SmnToastClientRuntime(KeyMapping showMusicToastKey, NowPlayingShareClient shareClient) {
         this.showMusicToastKey = showMusicToastKey;
+        this.shareClient = shareClient;
     }
 
     public void initialize() {
@@ -29,19 +41,31 @@ public class SmnToastClientRuntime {
             mediaListener = new MediaListener();
             mediaListener.start();
             SmnToast.LOGGER.info("Media listener started successfully");
-            String[] alert = mediaListener.getStartupAlert();
-            if (alert != null) {
-                startupAlertPending = true;
-            }
+            // The alert, if any, is known once the backend (or the agent leader) has answered
+            startupAlertPending = true;
         } catch (Exception e) {
             SmnToast.LOGGER.error("Failed to initialize media listener: {}", e.getMessage());
             SmnToast.LOGGER.error("Make sure you're running on a supported OS");
             return;
         }
 
+        lyricsDisplay = LyricsDisplay.create();
+
         SmnToast.LOGGER.info("System Music Notification Toast initialized successfully!");
     }
 
+    public void shutdown() {
+        SmnToast.LOGGER.info("System Music Notification Toast shutting down...");
+        if (mediaListener != null) {
+            mediaListener.stop();
+        }
+        if (lyricsDisplay != null) {
+            lyricsDisplay.close();
+        }
+        ProcessSupervisor.shutdown();
+        CommandTrace.stop();
+    }
+
     public void onClientTick(Minecraft client) {
         if (startupAlertPending && client.player != null) {
             startupAlertPending = false;
@@ -49,7 +73,7 @@ public class SmnToastClientRuntime {
             if (alert != null) {
                 lastToastTime = System.currentTimeMillis();
                 MusicToast toast = new MusicToast(alert[0], alert[1], true);
-                client.gui.toastManager().addToast(toast);
+                addToast(client, toast, ToastEvent.ALERT);
             }
         }
 
@@ -61,6 +85,7 @@ public class SmnToastClientRuntime {
         if (currentLevel != lastLevel) {
             lastTrackId = "";
             lastLevel = currentLevel;
+            shareClient.clear();
         }
 
         boolean keyWasPressed = false;
@@ -73,6 +98,10 @@ public class SmnToastClientRuntime {
         }
 
         TrackInfo currentTrack = mediaListener.getCurrentTrack();
+        shareClient.tick(currentTrack);
+        if (lyricsDisplay != null) {
+            lyricsDisplay.tick(client, currentTrack);
+        }
 
         if (currentTrack != null && currentTrack.isPlaying()) {
             String trackId = currentTrack.getTrackId();
@@ -87,19 +116,45 @@ public class SmnToastClientRuntime {
                     currentTrack.getAlbum()
                 );
 
-                client.gui.toastManager().addToast(toast);
+                addToast(client, toast, ToastEvent.TRACK);
                 SmnToast.LOGGER.info("Now playing: {} - {}", currentTrack.getArtist(), currentTrack.getTitle());
             }
         }
     }
 
+    /**
+     * Called for every action bar message received from the server.
+     */
+    public void onServerOverlayMessage() {
+        if (lyricsDisplay != null) {
+            lyricsDisplay.onServerOverlayMessage();
+        }
+    }
+
+    /**
+     * Shows a nearby player's shared track, unless any toast was shown recently.
+     */
+    public void onPeerTrack(Minecraft client, PeerTrackPayload payload) {
+        NowPlayingShareClient.PeerTrack track = shareClient.onPeerTrack(payload);
+        long now = System.currentTimeMillis();
+        if (track == null || client.level == null
+                || now - lastToastTime < TOAST_COOLDOWN_MS || now - lastPeerToastTime < PEER_TOAST_COOLDOWN_MS) {
+            return;
+        }
+        lastToastTime = now;
+        lastPeerToastTime = now;
+        Player player = client.level.getPlayerByUUID(payload.player());
+        String name = player != null ? player.getName().getString() : "A nearby player";
+        addToast(client, MusicToast.peer(name, track.title(), track.artist()), ToastEvent.PEER);
+    }
+
     private void showCurrentMusicToast(Minecraft client) {
         lastToastTime = System.currentTimeMillis();
         String[] alert = mediaListener.getStartupAlert();
 
         if (alert != null) {
             MusicToast toast = new MusicToast(alert[0], alert[1], true);
-            client.gui.toastManager().addToast(toast);
+            addToast(client, toast, ToastEvent.ALERT);
             return;
         }
 
@@ -114,7 +169,7 @@ public class SmnToastClientRuntime {
                 currentTrack.getAlbum()
             );
 
-            client.gui.toastManager().addToast(toast);
+            addToast(client, toast, ToastEvent.MANUAL);
             SmnToast.LOGGER.info("Manually showing current track: {} - {}", currentTrack.getArtist(), currentTrack.getTitle());
         } else {
             MusicToast toast = new MusicToast(
@@ -122,7 +177,12 @@ public class SmnToastClientRuntime {
                 "Start playing music to see info",
                 ""
             );
-            client.gui.toastManager().addToast(toast);
+            addToast(client, toast, ToastEvent.IDLE);
         }
     }
+
+    private static void addToast(Minecraft client, MusicToast toast, String kind) {
+        client.gui.toastManager().addToast(toast);
+        ToastEvent.emit(kind);
+    }
 }
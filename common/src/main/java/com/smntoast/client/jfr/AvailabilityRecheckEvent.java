@@ -0,0 +1,30 @@
+package com.smntoast.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * The periodic check of whether the media backend's tools are (still) available.
+ */
+@Name("smntoast.AvailabilityRecheck")
+@Label("Media Availability Recheck")
+@Category({"SMN Toast", "Media"})
+@Description("A periodic recheck of the media backend's availability")
+@Threshold("0 ms")
+@StackTrace(false)
+public class AvailabilityRecheckEvent extends Event {
+    @Label("Backend")
+    public String backend;
+
+    @Label("Alert")
+    @Description("Whether the backend reported a setup problem to show the player")
+    public boolean alert;
+
+    @Label("Live Child Processes")
+    public int liveChildren;
+}
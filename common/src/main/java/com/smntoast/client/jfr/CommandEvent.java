@@ -0,0 +1,37 @@
+package com.smntoast.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * One external command run by {@code CommandRunner}, or served from a replayed trace.
+ */
+@Name("smntoast.Command")
+@Label("Media Command")
+@Category({"SMN Toast", "Media"})
+@Description("An external command run to query the media player")
+@Threshold("10 ms")
+public class CommandEvent extends Event {
+    @Label("Command")
+    public String command;
+
+    @Label("Exit Code")
+    @Description("-1 if the command timed out or could not be run")
+    public int exitCode;
+
+    @Label("Bytes Read")
+    @DataAmount
+    public long bytesRead;
+
+    @Label("Timed Out")
+    public boolean timedOut;
+
+    @Label("Replayed")
+    @Description("Served from a command trace instead of being spawned")
+    public boolean replayed;
+}
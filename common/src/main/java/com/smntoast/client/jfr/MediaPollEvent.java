@@ -0,0 +1,33 @@
+package com.smntoast.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * One poll cycle of the media listener while it is the leader: probe plus, if the probe
+ * changed, the full fetch.
+ */
+@Name("smntoast.MediaPoll")
+@Label("Media Poll")
+@Category({"SMN Toast", "Media"})
+@Description("A media listener poll cycle")
+@Threshold("20 ms")
+@StackTrace(false)
+public class MediaPollEvent extends Event {
+    public static final String PROBE_HIT = "probe hit";
+    public static final String FETCHED = "fetched";
+    public static final String NO_TRACK = "no track";
+    public static final String ERROR = "error";
+
+    @Label("Backend")
+    public String backend;
+
+    @Label("Result")
+    @Description("probe hit, fetched, no track or error")
+    public String result;
+}
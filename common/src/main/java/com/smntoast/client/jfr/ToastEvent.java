@@ -0,0 +1,36 @@
+package com.smntoast.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A toast handed to the toast manager.
+ */
+@Name("smntoast.Toast")
+@Label("Music Toast")
+@Category({"SMN Toast", "Client"})
+@Description("A toast shown by the mod")
+@StackTrace(false)
+public class ToastEvent extends Event {
+    public static final String TRACK = "track";
+    public static final String MANUAL = "manual";
+    public static final String ALERT = "alert";
+    public static final String IDLE = "idle";
+    public static final String PEER = "peer";
+
+    @Label("Kind")
+    @Description("track, manual, alert, idle or peer")
+    public String kind;
+
+    public static void emit(String kind) {
+        ToastEvent event = new ToastEvent();
+        if (event.shouldCommit()) {
+            event.kind = kind;
+            event.commit();
+        }
+    }
+}
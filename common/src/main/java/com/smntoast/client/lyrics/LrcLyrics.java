@@ -0,0 +1,121 @@
+package com.smntoast.client.lyrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Parsed LRC file. Timestamps are kept sorted in a primitive array so that
+ * {@link #indexAt(long)} is a binary search that allocates nothing.
+ */
+public class LrcLyrics {
+    private final long[] timestamps;
+    private final String[] lines;
+
+    private LrcLyrics(long[] timestamps, String[] lines) {
+        this.timestamps = timestamps;
+        this.lines = lines;
+    }
+
+    public static LrcLyrics parse(List<String> content) {
+        List<long[]> stamps = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        long offset = 0;
+
+        for (String raw : content) {
+            String line = raw.trim();
+            if (line.startsWith("[offset:")) {
+                try {
+                    offset = Long.parseLong(line.substring(8, line.indexOf(']')).trim().replace("+", ""));
+                } catch (RuntimeException ignored) {
+                }
+                continue;
+            }
+
+            // A line may carry several timestamps: [00:12.00][01:30.50]text
+            List<Long> lineTimes = new ArrayList<>();
+            int pos = 0;
+            while (pos < line.length() && line.charAt(pos) == '[') {
+                int end = line.indexOf(']', pos);
+                if (end < 0) {
+                    break;
+                }
+                long time = parseTimestamp(line.substring(pos + 1, end));
+                if (time < 0) {
+                    break;
+                }
+                lineTimes.add(time);
+                pos = end + 1;
+            }
+            String text = line.substring(pos).trim();
+            for (long time : lineTimes) {
+                stamps.add(new long[]{time, texts.size()});
+                texts.add(text);
+            }
+        }
+
+        stamps.sort(Comparator.comparingLong(entry -> entry[0]));
+        long[] timestamps = new long[stamps.size()];
+        String[] lines = new String[stamps.size()];
+        for (int i = 0; i < stamps.size(); i++) {
+            // A positive offset makes lyrics appear sooner
+            timestamps[i] = Math.max(0L, stamps.get(i)[0] - offset);
+            lines[i] = texts.get((int) stamps.get(i)[1]);
+        }
+        return new LrcLyrics(timestamps, lines);
+    }
+
+    /**
+     * Parses {@code mm:ss}, {@code mm:ss.xx} or {@code mm:ss.xxx}; returns -1 for metadata tags.
+     */
+    private static long parseTimestamp(String tag) {
+        int colon = tag.indexOf(':');
+        if (colon <= 0) {
+            return -1L;
+        }
+        try {
+            long minutes = Long.parseLong(tag.substring(0, colon));
+            String rest = tag.substring(colon + 1);
+            int dot = rest.indexOf('.');
+            long seconds = Long.parseLong(dot < 0 ? rest : rest.substring(0, dot));
+            long millis = 0;
+            if (dot >= 0) {
+                String fraction = rest.substring(dot + 1);
+                millis = Long.parseLong(fraction);
+                for (int i = fraction.length(); i < 3; i++) {
+                    millis *= 10;
+                }
+                for (int i = fraction.length(); i > 3; i--) {
+                    millis /= 10;
+                }
+            }
+            return minutes * 60000L + seconds * 1000L + millis;
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    public boolean isEmpty() {
+        return timestamps.length == 0;
+    }
+
+    /**
+     * Index of the line active at {@code positionMs}, or -1 before the first line.
+     */
+    public int indexAt(long positionMs) {
+        int index = Arrays.binarySearch(timestamps, positionMs);
+        if (index < 0) {
+            return -index - 2;
+        }
+        // Several lines can share a timestamp; show the last of them
+        while (index + 1 < timestamps.length && timestamps[index + 1] == positionMs) {
+            index++;
+        }
+        return index;
+    }
+
+    public String lineAt(int index) {
+        return lines[index];
+    }
+}
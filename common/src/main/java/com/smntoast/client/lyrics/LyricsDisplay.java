@@ -0,0 +1,100 @@
+package com.smntoast.client.lyrics;
+
+import com.smntoast.client.media.TrackInfo;
+import net.minecraft.client.Minecraft;
+import net.minecraft.network.chat.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Shows the current line of synced lyrics above the hotbar. Enabled by pointing
+ * {@code -Dsmn-toast.lyricsDir=<path>} at a directory of {@code .lrc} files.
+ * Only shown when the backend reports a playback position; guessing it from when the track
+ * was detected drifts after every pause. The action bar is shared with the server, so nothing
+ * is sent while a server message is showing there.
+ */
+public class LyricsDisplay {
+    private static final String DIR_PROPERTY = "smn-toast.lyricsDir";
+    // The overlay message fades after about three seconds, so long lines are re-sent
+    private static final long REFRESH_MS = 2000L;
+    // How long the game keeps an action bar message on screen
+    private static final long SERVER_MESSAGE_MS = 3000L;
+
+    private final LyricsLibrary library;
+    private String trackId = "";
+    private LrcLyrics lyrics;
+    private int checkedVersion = -1;
+    private int lineIndex = -1;
+    private boolean lineShown;
+    private long lineShownAt;
+    private long serverMessageUntil;
+
+    private LyricsDisplay(LyricsLibrary library) {
+        this.library = library;
+    }
+
+    /**
+     * Returns null when no lyrics directory is configured.
+     */
+    public static LyricsDisplay create() {
+        String dir = System.getProperty(DIR_PROPERTY);
+        if (dir == null || dir.isEmpty() || !Files.isDirectory(Path.of(dir))) {
+            return null;
+        }
+        return new LyricsDisplay(new LyricsLibrary(Path.of(dir)));
+    }
+
+    /**
+     * Called when the server puts a message in the action bar.
+     */
+    public void onServerOverlayMessage() {
+        serverMessageUntil = System.currentTimeMillis() + SERVER_MESSAGE_MS;
+    }
+
+    public void tick(Minecraft client, TrackInfo track) {
+        if (track == null || !track.isPlaying() || !track.hasPosition()) {
+            lineIndex = -1;
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (!track.getTrackId().equals(trackId)) {
+            trackId = track.getTrackId();
+            lyrics = null;
+            checkedVersion = -1;
+            lineIndex = -1;
+        }
+        // Looked up again only when the library changed, so a track without lyrics costs nothing per tick
+        int version = library.getVersion();
+        if (version != checkedVersion) {
+            checkedVersion = version;
+            lyrics = library.find(track);
+        }
+        if (lyrics == null || lyrics.isEmpty()) {
+            return;
+        }
+
+        int index = lyrics.indexAt(track.getPositionMs(now));
+        if (index < 0) {
+            return;
+        }
+        if (index != lineIndex) {
+            lineIndex = index;
+            lineShown = false;
+        }
+        if (now < serverMessageUntil || (lineShown && now - lineShownAt < REFRESH_MS)) {
+            return;
+        }
+        lineShown = true;
+        lineShownAt = now;
+        String line = lyrics.lineAt(index);
+        if (!line.isEmpty()) {
+            client.gui.setOverlayMessage(Component.literal(line), false);
+        }
+    }
+
+    public void close() {
+        library.close();
+    }
+}
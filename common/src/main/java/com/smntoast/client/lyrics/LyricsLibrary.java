@@ -0,0 +1,181 @@
+package com.smntoast.client.lyrics;
+
+import com.smntoast.SmnToast;
+import com.smntoast.client.media.TrackInfo;
+import com.smntoast.util.LruCache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Index of the {@code .lrc} files under a directory, matched to tracks by file name
+ * ({@code Artist - Title.lrc} or {@code Title.lrc}). The index is built once on a background
+ * thread and then kept up to date from {@link WatchService} events. Parsed files are held in
+ * a small LRU cache and loaded off the calling thread.
+ */
+public class LyricsLibrary {
+    private static final int CACHE_SIZE = 8;
+
+    private final Path root;
+    private final Map<String, Path> index = new ConcurrentHashMap<>();
+    private final Map<Path, Boolean> loading = new ConcurrentHashMap<>();
+    private final LruCache<Path, LrcLyrics> cache = new LruCache<>(CACHE_SIZE);
+    private final AtomicInteger version = new AtomicInteger();
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Lyrics-Loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private WatchService watchService;
+
+    public LyricsLibrary(Path root) {
+        this.root = root;
+        Thread indexThread = new Thread(this::indexAndWatch, "Lyrics-Index");
+        indexThread.setDaemon(true);
+        indexThread.start();
+    }
+
+    /**
+     * Returns the parsed lyrics for {@code track} if they are cached, otherwise starts loading
+     * them in the background and returns null.
+     */
+    public LrcLyrics find(TrackInfo track) {
+        Path file = index.get(key(track.getArtist(), track.getTitle()));
+        if (file == null) {
+            file = index.get(key("", track.getTitle()));
+        }
+        if (file == null) {
+            return null;
+        }
+
+        synchronized (cache) {
+            LrcLyrics lyrics = cache.get(file);
+            if (lyrics != null) {
+                return lyrics;
+            }
+        }
+        Path toLoad = file;
+        if (loading.putIfAbsent(toLoad, Boolean.TRUE) == null) {
+            loader.execute(() -> load(toLoad));
+        }
+        return null;
+    }
+
+    /**
+     * Changes whenever the index changes or a file finishes loading, i.e. whenever
+     * {@link #find} might answer differently than before.
+     */
+    public int getVersion() {
+        return version.get();
+    }
+
+    public void close() {
+        loader.shutdownNow();
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void load(Path file) {
+        try {
+            LrcLyrics lyrics = LrcLyrics.parse(Files.readAllLines(file, StandardCharsets.UTF_8));
+            synchronized (cache) {
+                cache.put(file, lyrics);
+            }
+            version.incrementAndGet();
+        } catch (IOException e) {
+            SmnToast.LOGGER.debug("Error reading lyrics {}: {}", file, e.getMessage());
+        } finally {
+            loading.remove(file);
+        }
+    }
+
+    private void indexAndWatch() {
+        try {
+            watchService = root.getFileSystem().newWatchService();
+            scan(root);
+            SmnToast.LOGGER.info("Indexed {} lyrics files in {}", index.size(), root);
+
+            while (true) {
+                WatchKey key = watchService.take();
+                Path dir = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        index.clear();
+                        scan(root);
+                        version.incrementAndGet();
+                        continue;
+                    }
+                    Path path = dir.resolve((Path) event.context());
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                        scan(path);
+                    } else if (isLrc(path)) {
+                        onLrcChanged(path, event.kind() != StandardWatchEventKinds.ENTRY_DELETE);
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        } catch (IOException e) {
+            SmnToast.LOGGER.warn("Cannot index lyrics directory {}: {}", root, e.getMessage());
+        }
+    }
+
+    private void scan(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (Files.isDirectory(path)) {
+                    path.register(watchService,
+                            StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY,
+                            StandardWatchEventKinds.ENTRY_DELETE);
+                } else if (isLrc(path)) {
+                    onLrcChanged(path, true);
+                }
+            }
+        }
+    }
+
+    private void onLrcChanged(Path file, boolean exists) {
+        String name = file.getFileName().toString();
+        String stem = name.substring(0, name.length() - 4);
+        int sep = stem.indexOf(" - ");
+        String key = sep > 0 ? key(stem.substring(0, sep), stem.substring(sep + 3)) : key("", stem);
+
+        if (exists) {
+            index.put(key, file);
+        } else {
+            index.remove(key, file);
+        }
+        synchronized (cache) {
+            cache.remove(file);
+        }
+        version.incrementAndGet();
+    }
+
+    private static boolean isLrc(Path path) {
+        return path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".lrc");
+    }
+
+    private static String key(String artist, String title) {
+        return (artist.trim() + "\n" + title.trim()).toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,45 +1,116 @@
 package com.smntoast.client.media;
 
 import com.smntoast.SmnToast;
+import com.smntoast.client.jfr.CommandEvent;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 public class CommandRunner {
-    private static final long TIMEOUT_MS = 5000L;
+    static final long TIMEOUT_MS = 5000L;
 
     public static List<String> runCommand(String... command) {
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        CommandTrace.Execution execution;
+        CommandTrace.Replay replay = CommandTrace.replay();
+        if (replay != null) {
+            try {
+                execution = replay.serve(command);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                execution = null;
+            }
+        } else {
+            long startedAt = System.currentTimeMillis();
+            execution = execute(command);
+            if (execution != null) {
+                CommandTrace.record(command, execution, startedAt);
+            }
+        }
+        commit(event, command, execution, replay != null);
+        if (execution == null) {
+            return new ArrayList<>();
+        }
+
+        if (execution.timedOut()) {
+            SmnToast.LOGGER.debug("Command timed out after {}ms: {}", TIMEOUT_MS, String.join(" ", command));
+            return new ArrayList<>();
+        }
+        if (execution.exitCode() != 0) {
+            SmnToast.LOGGER.debug("Command returned exit code {}", execution.exitCode());
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(execution.output());
+    }
+
+    /**
+     * Runs {@code command} for real. Returns null if it could not be started or was interrupted.
+     */
+    private static CommandTrace.Execution execute(String... command) {
+        Process process = null;
+        long start = System.nanoTime();
         try {
             ProcessBuilder pb = new ProcessBuilder(command);
             pb.redirectErrorStream(true);
-            Process process = pb.start();
+            process = ProcessSupervisor.start(pb, TIMEOUT_MS);
+            if (process == null) {
+                return null;
+            }
 
             if (!process.waitFor(TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
-                process.destroyForcibly();
-                SmnToast.LOGGER.debug("Command timed out after {}ms: {}", TIMEOUT_MS, String.join(" ", command));
-                return new ArrayList<>();
+                ProcessSupervisor.kill(process);
+                return new CommandTrace.Execution(List.of(), -1, true, elapsedMs(start));
             }
 
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
             List<String> lines = new ArrayList<>();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                lines.add(line);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
             }
 
-            int exitCode = process.exitValue();
-            if (exitCode != 0) {
-                SmnToast.LOGGER.debug("Command returned exit code {}", exitCode);
-                return new ArrayList<>();
+            return new CommandTrace.Execution(lines, process.exitValue(), false, elapsedMs(start));
+        } catch (InterruptedException e) {
+            // Cancelled, e.g. a hedged query that lost the race
+            if (process != null) {
+                ProcessSupervisor.kill(process);
             }
-
-            return lines;
+            Thread.currentThread().interrupt();
+            return null;
         } catch (Exception e) {
             SmnToast.LOGGER.debug("Command exception: {}", e.getMessage());
-            return new ArrayList<>();
+            return null;
         }
     }
+
+    private static void commit(CommandEvent event, String[] command, CommandTrace.Execution execution, boolean replayed) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.command = String.join(" ", command);
+        event.replayed = replayed;
+        if (execution == null) {
+            event.exitCode = -1;
+        } else {
+            event.exitCode = execution.exitCode();
+            event.timedOut = execution.timedOut();
+            long bytes = 0;
+            for (String line : execution.output()) {
+                bytes += line.getBytes(StandardCharsets.UTF_8).length + 1;
+            }
+            event.bytesRead = bytes;
+        }
+        event.commit();
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
 }
@@ -0,0 +1,249 @@
+package com.smntoast.client.media;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.smntoast.SmnToast;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Records the commands {@link CommandRunner} executes, or replays a recording instead of
+ * running anything. A trace is one JSON object per line:
+ * {@code {"at":ms since start,"cmd":[...],"exit":code,"timeout":bool,"ms":latency,"out":[...]}},
+ * gzipped when the file name ends in {@code .gz}.
+ * <p>
+ * Enabled with {@code -Dsmn-toast.commandTrace.record=<file>} or
+ * {@code -Dsmn-toast.commandTrace.replay=<file>}. {@code -Dsmn-toast.commandTrace.speed} sets the
+ * replay speed: 1 keeps the original timing, higher values compress it, and 0 serves each
+ * command's responses in order with no delay.
+ */
+public class CommandTrace {
+    private static volatile Recorder recorder;
+    private static volatile Replay replay;
+
+    static {
+        String recordPath = System.getProperty("smn-toast.commandTrace.record");
+        String replayPath = System.getProperty("smn-toast.commandTrace.replay");
+        try {
+            if (replayPath != null && !replayPath.isEmpty()) {
+                double speed = Double.parseDouble(System.getProperty("smn-toast.commandTrace.speed", "1"));
+                startReplay(Path.of(replayPath), speed);
+            } else if (recordPath != null && !recordPath.isEmpty()) {
+                startRecording(Path.of(recordPath));
+            }
+        } catch (IOException | RuntimeException e) {
+            SmnToast.LOGGER.warn("Cannot open command trace: {}", e.getMessage());
+        }
+    }
+
+    public record Execution(List<String> output, int exitCode, boolean timedOut, long latencyMs) {
+    }
+
+    /**
+     * Time source of a replay: the clock responses are picked by, and the wait for their
+     * recorded latency. Tests substitute one that only advances when told to.
+     */
+    interface Clock {
+        Clock SYSTEM = new Clock() {
+            @Override
+            public long millis() {
+                return System.currentTimeMillis();
+            }
+
+            @Override
+            public void sleep(long ms) throws InterruptedException {
+                Thread.sleep(ms);
+            }
+        };
+
+        long millis();
+
+        void sleep(long ms) throws InterruptedException;
+    }
+
+    public static void startRecording(Path file) throws IOException {
+        recorder = new Recorder(file);
+        SmnToast.LOGGER.info("Recording media commands to {}", file);
+    }
+
+    public static void startReplay(Path file, double speed) throws IOException {
+        startReplay(file, speed, Clock.SYSTEM);
+    }
+
+    static void startReplay(Path file, double speed, Clock clock) throws IOException {
+        replay = new Replay(file, speed, clock);
+        SmnToast.LOGGER.info("Replaying media commands from {} at speed {}", file, speed);
+    }
+
+    public static void stop() {
+        Recorder active = recorder;
+        recorder = null;
+        replay = null;
+        if (active != null) {
+            active.close();
+        }
+    }
+
+    static Replay replay() {
+        return replay;
+    }
+
+    static void record(String[] command, Execution execution, long startedAtMs) {
+        Recorder active = recorder;
+        if (active != null) {
+            active.write(command, execution, startedAtMs);
+        }
+    }
+
+    private static class Recorder {
+        private final Writer writer;
+        private final long origin = System.currentTimeMillis();
+
+        Recorder(Path file) throws IOException {
+            OutputStream out = Files.newOutputStream(file);
+            if (file.toString().endsWith(".gz")) {
+                out = new GZIPOutputStream(out, true);
+            }
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+
+        synchronized void write(String[] command, Execution execution, long startedAtMs) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("at", startedAtMs - origin);
+            entry.add("cmd", toArray(List.of(command)));
+            entry.addProperty("exit", execution.exitCode());
+            if (execution.timedOut()) {
+                entry.addProperty("timeout", true);
+            }
+            entry.addProperty("ms", execution.latencyMs());
+            entry.add("out", toArray(execution.output()));
+            try {
+                writer.write(entry.toString());
+                writer.write('\n');
+                writer.flush();
+            } catch (IOException e) {
+                SmnToast.LOGGER.debug("Error writing command trace: {}", e.getMessage());
+            }
+        }
+
+        synchronized void close() {
+            try {
+                writer.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        private static JsonArray toArray(List<String> values) {
+            JsonArray array = new JsonArray();
+            values.forEach(array::add);
+            return array;
+        }
+    }
+
+    static class Replay {
+        private final double speed;
+        private final Clock clock;
+        private final long origin;
+        private final Map<String, List<Entry>> entries = new HashMap<>();
+        private final Map<String, Integer> cursors = new HashMap<>();
+
+        private record Entry(long at, Execution execution) {
+        }
+
+        Replay(Path file, double speed, Clock clock) throws IOException {
+            this.speed = speed;
+            this.clock = clock;
+            this.origin = clock.millis();
+            InputStream in = Files.newInputStream(file);
+            if (file.toString().endsWith(".gz")) {
+                in = new GZIPInputStream(in);
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    JsonObject json = JsonParser.parseString(line).getAsJsonObject();
+                    List<String> command = toList(json.getAsJsonArray("cmd"));
+                    Execution execution = new Execution(
+                            toList(json.getAsJsonArray("out")),
+                            json.get("exit").getAsInt(),
+                            json.has("timeout") && json.get("timeout").getAsBoolean(),
+                            json.get("ms").getAsLong());
+                    entries.computeIfAbsent(key(command.toArray(new String[0])), k -> new ArrayList<>())
+                            .add(new Entry(json.get("at").getAsLong(), execution));
+                }
+            }
+        }
+
+        /**
+         * Returns the recorded execution for {@code command}, after sleeping for its recorded
+         * latency scaled by the replay speed. Returns null for commands absent from the trace.
+         */
+        Execution serve(String[] command) throws InterruptedException {
+            Entry entry = pick(key(command));
+            if (entry == null) {
+                SmnToast.LOGGER.debug("Command not in trace: {}", String.join(" ", command));
+                return null;
+            }
+            if (speed > 0) {
+                clock.sleep((long) (entry.execution().latencyMs() / speed));
+            }
+            return entry.execution();
+        }
+
+        private synchronized Entry pick(String key) {
+            List<Entry> recorded = entries.get(key);
+            if (recorded == null) {
+                return null;
+            }
+            if (speed <= 0) {
+                // Sequential: each call gets the next response, repeating the last one at the end
+                int cursor = cursors.getOrDefault(key, 0);
+                cursors.put(key, Math.min(cursor + 1, recorded.size() - 1));
+                return recorded.get(cursor);
+            }
+            // Timed: the latest response recorded at or before the scaled replay clock
+            long elapsed = (long) ((clock.millis() - origin) * speed);
+            Entry picked = recorded.getFirst();
+            for (Entry entry : recorded) {
+                if (entry.at() > elapsed) {
+                    break;
+                }
+                picked = entry;
+            }
+            return picked;
+        }
+    }
+
+    private static String key(String[] command) {
+        return String.join("\u0000", command);
+    }
+
+    private static List<String> toList(JsonArray array) {
+        List<String> values = new ArrayList<>(array.size());
+        for (JsonElement element : array) {
+            values.add(element.getAsString());
+        }
+        return values;
+    }
+}
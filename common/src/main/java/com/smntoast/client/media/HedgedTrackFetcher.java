@@ -0,0 +1,257 @@
+package com.smntoast.client.media;
+
+import com.smntoast.SmnToast;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs each query against the backend with the lowest observed p95 latency and, if it has not
+ * answered within that p95, against the next one as well. The first answer wins, including null
+ * (a player with no title yet is a valid state), and the slower call is cancelled. A backend that
+ * throws is recorded as a slow sample and the next one is asked at once; losing calls count as
+ * at least as slow as the winner, so a backend that stalls (for example a player blocking its
+ * D-Bus reply) stops being picked first.
+ */
+public class HedgedTrackFetcher implements TrackFetcher {
+    private static final long DEFAULT_HEDGE_DELAY_MS = 250L;
+    private static final long MIN_HEDGE_DELAY_MS = 20L;
+    // A backend whose p95 is a command timeout must not turn hedging off
+    private static final long MAX_HEDGE_DELAY_MS = CommandRunner.TIMEOUT_MS / 5;
+    private static final long FAILURE_PENALTY_MS = 5000L;
+    private static final int SAMPLE_WINDOW = 64;
+    private static final int MIN_SAMPLES = 8;
+
+    public record Backend(String name, TrackFetcher fetcher, BooleanSupplier available) {
+    }
+
+    private final List<Backend> backends;
+    private final List<LatencyStats> stats = new ArrayList<>();
+    private final List<AtomicBoolean> busy = new ArrayList<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "Media-Hedge");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private int lastProbeWinner = -1;
+
+    public HedgedTrackFetcher(List<Backend> backends) {
+        this.backends = List.copyOf(backends);
+        for (int i = 0; i < backends.size(); i++) {
+            stats.add(new LatencyStats());
+            busy.add(new AtomicBoolean(false));
+        }
+    }
+
+    /**
+     * Backends must produce the same probe key for the same state, so a change of winner
+     * alone does not trigger a fetch.
+     */
+    @Override
+    public String probe() {
+        Result<String> result = hedge((index, fetcher) -> fetcher.probe(), -1);
+        if (result == null) {
+            lastProbeWinner = -1;
+            return null;
+        }
+        lastProbeWinner = result.backend();
+        return result.value();
+    }
+
+    /**
+     * Only the probe winner holds a probe from this poll. Any other backend the fetch is hedged
+     * onto probes again first, so it cannot answer from a probe left over from an earlier poll.
+     */
+    @Override
+    public TrackInfo fetchCurrentTrack() {
+        int winner = lastProbeWinner;
+        lastProbeWinner = -1;
+        Result<TrackInfo> result = hedge((index, fetcher) -> {
+            if (index != winner) {
+                fetcher.probe();
+            }
+            return fetcher.fetchCurrentTrack();
+        }, winner);
+        return result != null ? result.value() : null;
+    }
+
+    @Override
+    public String[] getStartupAlert() {
+        String[] first = null;
+        for (Backend backend : backends) {
+            String[] alert = backend.fetcher().getStartupAlert();
+            if (alert == null) {
+                return null;
+            }
+            if (first == null) {
+                first = alert;
+            }
+        }
+        return first;
+    }
+
+    @Override
+    public void recheckAvailability() {
+        for (Backend backend : backends) {
+            backend.fetcher().recheckAvailability();
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        for (Backend backend : backends) {
+            backend.fetcher().close();
+        }
+    }
+
+    private record Result<T>(int backend, T value, boolean failed) {
+    }
+
+    private <T> Result<T> hedge(BiFunction<Integer, TrackFetcher, T> query, int preferred) {
+        List<Integer> order = rankBackends(preferred);
+        if (order.isEmpty()) {
+            return null;
+        }
+
+        CompletionService<Result<T>> completion = new ExecutorCompletionService<>(executor);
+        List<Future<Result<T>>> running = new ArrayList<>();
+        long[] startedAt = new long[backends.size()];
+        int next = 0;
+        try {
+            running.add(submit(completion, query, order.get(next), startedAt));
+            next++;
+
+            while (!running.isEmpty()) {
+                Future<Result<T>> done;
+                if (next < order.size()) {
+                    long hedgeDelay = stats.get(order.getFirst()).hedgeDelayMs();
+                    done = completion.poll(hedgeDelay, TimeUnit.MILLISECONDS);
+                    if (done == null) {
+                        SmnToast.LOGGER.debug("{} slower than {}ms, hedging with {}",
+                                backends.get(order.get(next - 1)).name(), hedgeDelay, backends.get(order.get(next)).name());
+                        running.add(submit(completion, query, order.get(next), startedAt));
+                        next++;
+                        continue;
+                    }
+                } else {
+                    done = completion.take();
+                }
+                running.remove(done);
+
+                Result<T> result = done.get();
+                if (!result.failed()) {
+                    return result;
+                }
+                if (next < order.size()) {
+                    // Failed fast, no point waiting out the hedge delay
+                    running.add(submit(completion, query, order.get(next), startedAt));
+                    next++;
+                }
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            SmnToast.LOGGER.debug("Hedged media query failed: {}", e.getMessage());
+            return null;
+        } finally {
+            long now = System.nanoTime();
+            for (Future<Result<T>> loser : running) {
+                loser.cancel(true);
+            }
+            for (int i = 0; i < startedAt.length; i++) {
+                if (startedAt[i] != 0 && busy.get(i).get()) {
+                    // Still running when we stopped waiting: count it as at least this slow
+                    stats.get(i).record(TimeUnit.NANOSECONDS.toMillis(now - startedAt[i]));
+                }
+            }
+        }
+    }
+
+    private <T> Future<Result<T>> submit(CompletionService<Result<T>> completion,
+                                         BiFunction<Integer, TrackFetcher, T> query, int index, long[] startedAt) {
+        busy.get(index).set(true);
+        startedAt[index] = System.nanoTime();
+        long start = startedAt[index];
+        return completion.submit(() -> {
+            boolean failed = true;
+            try {
+                T value = query.apply(index, backends.get(index).fetcher());
+                failed = false;
+                return new Result<>(index, value, false);
+            } catch (RuntimeException e) {
+                SmnToast.LOGGER.debug("{} failed: {}", backends.get(index).name(), e.getMessage());
+                return new Result<>(index, null, true);
+            } finally {
+                long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                // Cancelled calls are recorded by hedge() as at least as slow as the winner
+                if (!Thread.currentThread().isInterrupted()) {
+                    stats.get(index).record(failed ? Math.max(elapsed, FAILURE_PENALTY_MS) : elapsed);
+                }
+                busy.get(index).set(false);
+            }
+        });
+    }
+
+    long hedgeDelayMs(int backend) {
+        return stats.get(backend).hedgeDelayMs();
+    }
+
+    /**
+     * Available, idle backends ordered by p95 latency, with {@code preferred} first when usable.
+     */
+    private List<Integer> rankBackends(int preferred) {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < backends.size(); i++) {
+            if (!busy.get(i).get() && backends.get(i).available().getAsBoolean()) {
+                order.add(i);
+            }
+        }
+        order.sort((a, b) -> Long.compare(stats.get(a).p95(), stats.get(b).p95()));
+        if (preferred >= 0 && order.remove(Integer.valueOf(preferred))) {
+            order.addFirst(preferred);
+        }
+        return order;
+    }
+
+    /**
+     * Ring buffer of the most recent latencies of one backend.
+     */
+    private static class LatencyStats {
+        private final long[] samples = new long[SAMPLE_WINDOW];
+        private int count = 0;
+        private int nextSlot = 0;
+
+        synchronized void record(long latencyMs) {
+            samples[nextSlot] = latencyMs;
+            nextSlot = (nextSlot + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        synchronized long p95() {
+            if (count < MIN_SAMPLES) {
+                return DEFAULT_HEDGE_DELAY_MS;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.ceil(count * 0.95) - 1];
+        }
+
+        long hedgeDelayMs() {
+            return Math.clamp(p95(), MIN_HEDGE_DELAY_MS, MAX_HEDGE_DELAY_MS);
+        }
+    }
+}
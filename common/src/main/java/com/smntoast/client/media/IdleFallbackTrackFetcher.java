@@ -0,0 +1,66 @@
+package com.smntoast.client.media;
+
+/**
+ * Uses {@code primary} while it reports a playing track and {@code fallback} otherwise.
+ * The primary must be cheap to read (a {@link TrackFetcherProvider.Mode#PUSH} backend), since
+ * it is consulted on every probe; the fallback is only queried while the primary is idle.
+ */
+public class IdleFallbackTrackFetcher implements TrackFetcher {
+    private final TrackFetcher primary;
+    private final TrackFetcher fallback;
+
+    public IdleFallbackTrackFetcher(TrackFetcher primary, TrackFetcher fallback) {
+        this.primary = primary;
+        this.fallback = fallback;
+    }
+
+    /**
+     * No key while the primary plays, so every poll re-reads its cached state.
+     */
+    @Override
+    public String probe() {
+        if (isPrimaryPlaying()) {
+            return null;
+        }
+        return fallback.probe();
+    }
+
+    @Override
+    public TrackInfo fetchCurrentTrack() {
+        TrackInfo track = primary.fetchCurrentTrack();
+        if (track != null && track.isPlaying()) {
+            return track;
+        }
+        TrackInfo other = fallback.fetchCurrentTrack();
+        return other != null ? other : track;
+    }
+
+    /**
+     * An alert is only worth showing when neither backend works.
+     */
+    @Override
+    public String[] getStartupAlert() {
+        String[] alert = primary.getStartupAlert();
+        if (alert == null || fallback.getStartupAlert() == null) {
+            return null;
+        }
+        return alert;
+    }
+
+    @Override
+    public void recheckAvailability() {
+        primary.recheckAvailability();
+        fallback.recheckAvailability();
+    }
+
+    @Override
+    public void close() {
+        primary.close();
+        fallback.close();
+    }
+
+    private boolean isPrimaryPlaying() {
+        TrackInfo track = primary.fetchCurrentTrack();
+        return track != null && track.isPlaying();
+    }
+}
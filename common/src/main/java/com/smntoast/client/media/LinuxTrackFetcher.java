@@ -1,34 +1,159 @@
 package com.smntoast.client.media;
 
 import com.smntoast.SmnToast;
+import com.smntoast.util.LruCache;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 
 public class LinuxTrackFetcher implements TrackFetcher {
-    private final boolean isFlatpak;
+    // ASCII unit separator, which does not occur in track metadata
+    private static final String FIELD_SEPARATOR = "\u001f";
+    private static final String MPRIS_PREFIX = "org.mpris.MediaPlayer2.";
+    private static final Probe NO_PLAYER = new Probe(null, null, "", null, -1L, null);
+    private static final int METADATA_CACHE_SIZE = 32;
+
+    private static final boolean IS_FLATPAK = System.getenv("FLATPAK_ID") != null ||
+            new java.io.File("/.flatpak-info").exists();
+
+    private final boolean useDbus;
+    private final PlayerSelection selection;
     private String[] startupAlert;
+    private volatile boolean toolAvailable;
+    private final LruCache<String, TrackInfo> metadataCache = new LruCache<>(METADATA_CACHE_SIZE);
+    private Probe lastProbe;
+
+    /**
+     * Result of the cheap first phase. {@code player} is the MPRIS instance name (the bus name without
+     * {@value #MPRIS_PREFIX}), which playerctl and D-Bus agree on. {@code dbusOutput} keeps the raw
+     * reply on the D-Bus path so the second phase can parse the remaining fields without another call.
+     * {@code positionMs} is -1 when the player does not report it, and is not part of the key.
+     */
+    private record Probe(String player, String status, String trackId, String title, long positionMs, String dbusOutput) {
+        String key() {
+            return player + FIELD_SEPARATOR + status + FIELD_SEPARATOR + trackId + FIELD_SEPARATOR + title;
+        }
+
+        boolean isPlaying() {
+            return "Playing".equalsIgnoreCase(status);
+        }
+    }
+
+    /**
+     * Which player to follow when several are running. Shared by fetchers that are hedged
+     * against each other, so that whichever answers describes the same player: the current
+     * one while it plays, otherwise the first playing one by name, otherwise the current one
+     * if it is still there, otherwise the first by name.
+     */
+    public static class PlayerSelection {
+        private volatile String current;
+        private String seekTrack;
+        private long seekPositionMs;
+        private long seekSampledAt;
+        private int seeks;
+
+        String current() {
+            return current;
+        }
+
+        synchronized Probe choose(List<Probe> players) {
+            List<Probe> sorted = new ArrayList<>(players);
+            sorted.sort(Comparator.comparing(Probe::player));
+            Probe previous = null;
+            Probe firstPlaying = null;
+            for (Probe player : sorted) {
+                if (player.player().equals(current)) {
+                    previous = player;
+                }
+                if (firstPlaying == null && player.isPlaying()) {
+                    firstPlaying = player;
+                }
+            }
+
+            Probe chosen;
+            if (previous != null && previous.isPlaying()) {
+                chosen = previous;
+            } else if (firstPlaying != null) {
+                chosen = firstPlaying;
+            } else if (previous != null) {
+                chosen = previous;
+            } else {
+                chosen = sorted.isEmpty() ? NO_PLAYER : sorted.getFirst();
+            }
+            current = chosen.player();
+            return chosen;
+        }
+
+        /**
+         * Counts jumps in the playing position that playback alone does not explain, so that
+         * a seek changes the probe key and the position is read again.
+         */
+        synchronized int countSeeks(Probe state, long now) {
+            if (state.positionMs() < 0 || !state.isPlaying()) {
+                seekTrack = null;
+                return seeks;
+            }
+            String track = state.key();
+            if (track.equals(seekTrack)
+                    && Math.abs(state.positionMs() - (seekPositionMs + now - seekSampledAt)) > TrackInfo.SEEK_TOLERANCE_MS) {
+                seeks++;
+            }
+            seekTrack = track;
+            seekPositionMs = state.positionMs();
+            seekSampledAt = now;
+            return seeks;
+        }
+    }
 
     public LinuxTrackFetcher() {
-        this.isFlatpak = System.getenv("FLATPAK_ID") != null ||
-                new java.io.File("/.flatpak-info").exists();
-        this.startupAlert = checkAvailability();
-        if (isFlatpak) {
+        this(IS_FLATPAK);
+        if (IS_FLATPAK) {
             SmnToast.LOGGER.info("Flatpak environment detected, using D-Bus for MPRIS access");
         }
     }
 
+    /**
+     * @param useDbus query players with {@code dbus-send} instead of {@code playerctl}
+     */
+    public LinuxTrackFetcher(boolean useDbus) {
+        this(useDbus, new PlayerSelection());
+    }
+
+    /**
+     * @param selection player choice shared with the fetchers this one is hedged against
+     */
+    public LinuxTrackFetcher(boolean useDbus, PlayerSelection selection) {
+        this.useDbus = useDbus;
+        this.selection = selection;
+        this.startupAlert = checkAvailability();
+    }
+
+    /**
+     * Whether the command line tool this fetcher relies on could be run at the last check.
+     */
+    public boolean isToolAvailable() {
+        return toolAvailable;
+    }
+
     private String[] checkAvailability() {
-        if (isFlatpak) {
+        toolAvailable = false;
+        if (useDbus) {
             List<String> dbusTest = CommandRunner.runCommand(
                     "dbus-send", "--session", "--dest=org.freedesktop.DBus",
                     "--type=method_call", "--print-reply",
                     "/org/freedesktop/DBus", "org.freedesktop.DBus.ListNames"
             );
             if (dbusTest.isEmpty()) {
-                SmnToast.LOGGER.warn("dbus-send not available in Flatpak");
+                if (IS_FLATPAK) {
+                    SmnToast.LOGGER.warn("dbus-send not available in Flatpak");
+                }
                 return new String[]{"dbus-send not found", "D-Bus tools missing in Flatpak runtime"};
             }
+            toolAvailable = true;
             boolean mprisVisible = false;
             for (String line : dbusTest) {
                 if (line.contains("org.mpris.MediaPlayer2.")) {
@@ -37,7 +162,9 @@ public class LinuxTrackFetcher implements TrackFetcher {
                 }
             }
             if (!mprisVisible) {
-                SmnToast.LOGGER.warn("No MPRIS players visible via D-Bus in Flatpak — permission may not be granted");
+                if (IS_FLATPAK) {
+                    SmnToast.LOGGER.warn("No MPRIS players visible via D-Bus in Flatpak — permission may not be granted");
+                }
                 return new String[]{"No MPRIS players found", "Check D-Bus permission or start a player"};
             }
         } else {
@@ -46,6 +173,7 @@ public class LinuxTrackFetcher implements TrackFetcher {
                 SmnToast.LOGGER.warn("playerctl not found on PATH — media detection will not work");
                 return new String[]{"playerctl not installed", "Install it to enable music detection"};
             }
+            toolAvailable = true;
         }
         return null;
     }
@@ -60,92 +188,170 @@ public class LinuxTrackFetcher implements TrackFetcher {
         this.startupAlert = checkAvailability();
     }
 
+    /**
+     * Reads player, status and track identity: one {@code playerctl} spawn covering all players,
+     * or one D-Bus {@code GetAll} call while the selected player keeps playing (every player is
+     * asked otherwise).
+     */
+    @Override
+    public String probe() {
+        try {
+            Probe state = useDbus ? probeDbus() : probePlayerctl();
+            if (Thread.currentThread().isInterrupted()) {
+                // Cancelled mid-command, so the state is an empty reply rather than "no player"
+                lastProbe = null;
+                return null;
+            }
+            lastProbe = state;
+            return state.key() + FIELD_SEPARATOR + selection.countSeeks(state, System.currentTimeMillis());
+        } catch (Exception e) {
+            SmnToast.LOGGER.debug("Error probing MPRIS state: {}", e.getMessage());
+            lastProbe = null;
+            return null;
+        }
+    }
+
     @Override
     public TrackInfo fetchCurrentTrack() {
         try {
-            if (isFlatpak) {
-                return fetchCurrentTrackDbus();
+            Probe state = lastProbe;
+            lastProbe = null;
+            if (state == null) {
+                state = useDbus ? probeDbus() : probePlayerctl();
             }
-            List<String> statusOutput = CommandRunner.runCommand("playerctl", "status");
-            String status = statusOutput.isEmpty() ? null : statusOutput.getFirst();
-            if (status == null || !status.trim().equalsIgnoreCase("Playing")) {
+            if (state.player() == null || !state.isPlaying()) {
                 return new TrackInfo("", "", "", "", false);
             }
-
-            List<String> titleOutput = CommandRunner.runCommand("playerctl", "metadata", "title");
-            String title = titleOutput.isEmpty() ? null : titleOutput.getFirst();
-            List<String> artistOutput = CommandRunner.runCommand("playerctl", "metadata", "artist");
-            String artist = artistOutput.isEmpty() ? null : artistOutput.getFirst();
-            List<String> albumOutput = CommandRunner.runCommand("playerctl", "metadata", "album");
-            String album = albumOutput.isEmpty() ? null : albumOutput.getFirst();
-            List<String> trackIdOutput = CommandRunner.runCommand("playerctl", "metadata", "mpris:trackid");
-            String trackId = trackIdOutput.isEmpty() ? null : trackIdOutput.getFirst();
-
-            if (title == null || title.isEmpty()) {
+            if (state.title() == null || state.title().isEmpty()) {
                 return null;
             }
 
-            if (trackId == null || trackId.isEmpty()) {
-                trackId = (title + "-" + artist).hashCode() + "";
+            // Title is part of the key because some players report the same trackid for every track
+            String cacheKey = state.player() + FIELD_SEPARATOR + state.trackId() + FIELD_SEPARATOR + state.title();
+            TrackInfo cached = metadataCache.get(cacheKey);
+            if (cached != null) {
+                return cached.withPositionMs(state.positionMs());
             }
 
-            return new TrackInfo(
-                    trackId.trim(),
-                    title != null ? title.trim() : "Unknown",
-                    artist != null ? artist.trim() : "Unknown Artist",
-                    album != null ? album.trim() : "",
-                    true
-            );
+            TrackInfo track = useDbus ? parseDbusMetadata(state) : fetchPlayerctlMetadata(state);
+            if (track != null) {
+                metadataCache.put(cacheKey, track);
+            }
+            return track;
         } catch (Exception e) {
             SmnToast.LOGGER.debug("Error fetching MPRIS metadata: {}", e.getMessage());
             return null;
         }
     }
 
-    private TrackInfo fetchCurrentTrackDbus() {
-        try {
-            String player = findMprisPlayer();
-            if (player == null) {
-                return new TrackInfo("", "", "", "", false);
+    private Probe probePlayerctl() {
+        List<String> output = CommandRunner.runCommand(
+                "playerctl", "--all-players", "metadata", "--format",
+                String.join(FIELD_SEPARATOR, "{{playerInstance}}", "{{status}}", "{{mpris:trackid}}", "{{title}}", "{{position}}")
+        );
+        List<Probe> players = new ArrayList<>();
+        for (String line : output) {
+            String[] fields = line.split(FIELD_SEPARATOR, -1);
+            if (!field(fields, 0).isEmpty()) {
+                players.add(new Probe(field(fields, 0), field(fields, 1), field(fields, 2), field(fields, 3),
+                        microsToMillis(field(fields, 4)), null));
             }
+        }
+        return selection.choose(players);
+    }
 
-            String status = getDbusProperty(player, "PlaybackStatus");
-            if (status == null || !status.contains("Playing")) {
-                return new TrackInfo("", "", "", "", false);
+    private TrackInfo fetchPlayerctlMetadata(Probe state) {
+        List<String> output = CommandRunner.runCommand(
+                "playerctl", "--player=" + state.player(), "metadata", "--format",
+                String.join(FIELD_SEPARATOR, "{{artist}}", "{{album}}")
+        );
+        String[] fields = output.isEmpty() ? new String[0] : output.getFirst().split(FIELD_SEPARATOR, -1);
+        String artist = field(fields, 0);
+        String album = field(fields, 1);
+        return toTrackInfo(state, artist, album);
+    }
+
+    private Probe probeDbus() {
+        String current = selection.current();
+        if (current != null) {
+            Probe state = probeDbusPlayer(current);
+            if (state != null && state.isPlaying()) {
+                return state;
             }
+        }
 
-            String metadata = getDbusProperty(player, "Metadata");
-            if (metadata == null) {
-                return null;
+        // Nothing known to be playing: ask every player so a newly started one is picked up
+        List<Probe> players = new ArrayList<>();
+        for (String player : listMprisPlayers()) {
+            Probe state = probeDbusPlayer(player);
+            if (state != null) {
+                players.add(state);
             }
+        }
+        return selection.choose(players);
+    }
+
+    /**
+     * Returns null if the player did not answer.
+     */
+    private Probe probeDbusPlayer(String player) {
+        String output = getAllDbusProperties(MPRIS_PREFIX + player);
+        if (output.isEmpty()) {
+            return null;
+        }
+        String status = extractMetadataValue(output, "PlaybackStatus");
+        String trackId = extractMetadataValue(output, "mpris:trackid");
+        return new Probe(player, status != null ? status : "", trackId != null ? trackId : "",
+                extractMetadataValue(output, "xesam:title"), microsToMillis(extractInt64(output, "Position")), output);
+    }
 
-            String title = extractMetadataValue(metadata, "xesam:title");
-            String artist = extractMetadataValue(metadata, "xesam:artist");
-            String album = extractMetadataValue(metadata, "xesam:album");
-            String trackId = extractMetadataValue(metadata, "mpris:trackid");
+    private TrackInfo parseDbusMetadata(Probe state) {
+        // playerctl joins multiple artists the same way, so both backends build the same identity
+        List<String> artists = extractMetadataValues(state.dbusOutput(), "xesam:artist");
+        return toTrackInfo(state,
+                String.join(", ", artists),
+                extractMetadataValue(state.dbusOutput(), "xesam:album"));
+    }
 
-            if (title == null || title.isEmpty()) {
-                return null;
-            }
+    private static TrackInfo toTrackInfo(Probe state, String artist, String album) {
+        String trackId = state.trackId();
+        if (trackId.isEmpty()) {
+            trackId = (state.title() + "-" + artist).hashCode() + "";
+        }
 
-            if (trackId == null || trackId.isEmpty()) {
-                trackId = (title + "-" + artist).hashCode() + "";
-            }
+        return new TrackInfo(
+                trackId.trim(),
+                state.title().trim(),
+                artist != null && !artist.isEmpty() ? artist.trim() : "Unknown Artist",
+                album != null ? album.trim() : "",
+                true,
+                state.positionMs()
+        );
+    }
 
-            return new TrackInfo(
-                    trackId.trim(),
-                    title.trim(),
-                    artist != null && !artist.isEmpty() ? artist.trim() : "Unknown Artist",
-                    album != null ? album.trim() : "",
-                    true
-            );
-        } catch (Exception e) {
-            SmnToast.LOGGER.debug("Error fetching D-Bus MPRIS metadata: {}", e.getMessage());
-            return null;
+    /**
+     * MPRIS positions are in microseconds. Returns -1 for a missing or malformed value.
+     */
+    private static long microsToMillis(String micros) {
+        if (micros == null || micros.isEmpty()) {
+            return -1L;
         }
+        try {
+            return Long.parseLong(micros.trim()) / 1000L;
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    private static String field(String[] fields, int index) {
+        return index < fields.length ? fields[index] : "";
     }
 
-    private String findMprisPlayer() {
+    /**
+     * MPRIS instance names of all players on the session bus.
+     */
+    private List<String> listMprisPlayers() {
+        List<String> players = new ArrayList<>();
         try {
             List<String> output = CommandRunner.runCommand(
                     "dbus-send", "--session", "--dest=org.freedesktop.DBus",
@@ -154,88 +360,152 @@ public class LinuxTrackFetcher implements TrackFetcher {
             );
 
             for (String line : output) {
-                if (line.contains("org.mpris.MediaPlayer2.")) {
-                    int start = line.indexOf("org.mpris.MediaPlayer2.");
+                int start = line.indexOf(MPRIS_PREFIX);
+                if (start != -1) {
                     int end = line.indexOf("\"", start);
-                    if (end > start) {
-                        return line.substring(start, end);
+                    if (end > start + MPRIS_PREFIX.length()) {
+                        players.add(line.substring(start + MPRIS_PREFIX.length(), end));
                     }
                 }
             }
-
-            return null;
         } catch (Exception e) {
-            SmnToast.LOGGER.debug("Error finding MPRIS player: {}", e.getMessage());
-            return null;
+            SmnToast.LOGGER.debug("Error listing MPRIS players: {}", e.getMessage());
         }
+        return players;
     }
 
-    private String getDbusProperty(String player, String property) {
+    private String getAllDbusProperties(String player) {
         try {
             List<String> output = CommandRunner.runCommand(
                     "dbus-send", "--session", "--dest=" + player,
                     "--type=method_call", "--print-reply",
                     "/org/mpris/MediaPlayer2",
-                    "org.freedesktop.DBus.Properties.Get",
-                    "string:org.mpris.MediaPlayer2.Player",
-                    "string:" + property
+                    "org.freedesktop.DBus.Properties.GetAll",
+                    "string:org.mpris.MediaPlayer2.Player"
             );
 
             return String.join("\n", output);
         } catch (Exception e) {
-            SmnToast.LOGGER.debug("Error getting D-Bus property: {}", e.getMessage());
-            return null;
+            SmnToast.LOGGER.debug("Error getting D-Bus properties: {}", e.getMessage());
+            return "";
         }
     }
 
-    private String extractMetadataValue(String metadata, String key) {
-        try {
-            int keyIndex = metadata.indexOf(key);
-            if (keyIndex == -1) {
-                return null;
-            }
+    /**
+     * Reads the value of {@code key} from {@code dbus-send --print-reply} output: a string, an
+     * object path (as {@code mpris:trackid} usually is), or the first string of an array.
+     * Returns null if the key is missing or its value is neither.
+     */
+    private static String extractMetadataValue(String metadata, String key) {
+        List<String> values = extractMetadataValues(metadata, key);
+        return values.isEmpty() ? null : values.getFirst();
+    }
+
+    /**
+     * The {@code int64} value of {@code key} as text, or null if it is missing or of another type.
+     */
+    private static String extractInt64(String metadata, String key) {
+        int keyIndex = metadata.indexOf("\"" + key + "\"");
+        if (keyIndex == -1) {
+            return null;
+        }
+        int from = keyIndex + key.length() + 2;
+        int limit = metadata.indexOf("dict entry(", from);
+        int start = metadata.indexOf("int64 ", from);
+        if (start == -1 || (limit != -1 && start > limit)) {
+            return null;
+        }
+        int end = start + 6;
+        while (end < metadata.length() && (Character.isDigit(metadata.charAt(end)) || metadata.charAt(end) == '-')) {
+            end++;
+        }
+        return metadata.substring(start + 6, end);
+    }
 
-            String afterKey = metadata.substring(keyIndex);
+    /**
+     * All string and object path values of {@code key}. Only the key's own dict entry is
+     * searched, so a missing or non-string value gives nothing rather than the next entry's value.
+     */
+    private static List<String> extractMetadataValues(String metadata, String key) {
+        List<String> values = new ArrayList<>();
+        int keyIndex = metadata.indexOf("\"" + key + "\"");
+        if (keyIndex == -1) {
+            return values;
+        }
+        int from = keyIndex + key.length() + 2;
+        int limit = metadata.indexOf("dict entry(", from);
+        if (limit == -1) {
+            limit = metadata.length();
+        }
 
-            if (key.equals("xesam:artist")) {
-                int arrayStart = afterKey.indexOf("array [");
-                if (arrayStart != -1) {
-                    int stringStart = afterKey.indexOf("string \"", arrayStart);
-                    if (stringStart != -1) {
-                        int valueStart = stringStart + 8;
-                        int valueEnd = afterKey.indexOf("\"", valueStart);
-                        if (valueEnd > valueStart) {
-                            return afterKey.substring(valueStart, valueEnd);
-                        }
-                    }
+        while (true) {
+            int valueStart = -1;
+            for (String prefix : new String[]{"string \"", "object path \""}) {
+                int start = metadata.indexOf(prefix, from);
+                if (start != -1 && start < limit && (valueStart == -1 || start + prefix.length() < valueStart)) {
+                    valueStart = start + prefix.length();
                 }
             }
-
-            int stringStart = afterKey.indexOf("string \"");
-            if (stringStart != -1) {
-                int valueStart = stringStart + 8;
-                int valueEnd = afterKey.indexOf("\"", valueStart);
-                if (valueEnd > valueStart) {
-                    return afterKey.substring(valueStart, valueEnd);
-                }
+            if (valueStart == -1) {
+                return values;
             }
-
-            int variantStart = afterKey.indexOf("variant");
-            if (variantStart != -1) {
-                String afterVariant = afterKey.substring(variantStart);
-                stringStart = afterVariant.indexOf("string \"");
-                if (stringStart != -1) {
-                    int valueStart = stringStart + 8;
-                    int valueEnd = afterVariant.indexOf("\"", valueStart);
-                    if (valueEnd > valueStart) {
-                        return afterVariant.substring(valueStart, valueEnd);
-                    }
-                }
+            int valueEnd = metadata.indexOf('"', valueStart);
+            if (valueEnd == -1) {
+                return values;
             }
+            values.add(metadata.substring(valueStart, valueEnd));
+            from = valueEnd + 1;
+        }
+    }
 
-            return null;
-        } catch (Exception e) {
-            return null;
+    public static class Provider implements TrackFetcherProvider {
+        @Override
+        public String name() {
+            return "MPRIS";
+        }
+
+        @Override
+        public int priority() {
+            return 100;
+        }
+
+        @Override
+        public Mode mode() {
+            return Mode.PULL;
+        }
+
+        @Override
+        public Cost cost() {
+            return Cost.HIGH;
+        }
+
+        @Override
+        public Set<Platform> platforms() {
+            return EnumSet.of(Platform.LINUX);
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public TrackFetcher create() {
+            if (IS_FLATPAK) {
+                return new LinuxTrackFetcher();
+            }
+            // Outside Flatpak both tools can answer, so hedge a stalled one with the other.
+            // They share the player choice so that either answer describes the same player.
+            PlayerSelection selection = new PlayerSelection();
+            LinuxTrackFetcher playerctl = new LinuxTrackFetcher(false, selection);
+            LinuxTrackFetcher dbus = new LinuxTrackFetcher(true, selection);
+            if (!dbus.isToolAvailable()) {
+                return playerctl;
+            }
+            return new HedgedTrackFetcher(List.of(
+                    new HedgedTrackFetcher.Backend("playerctl", playerctl, playerctl::isToolAvailable),
+                    new HedgedTrackFetcher.Backend("dbus-send", dbus, dbus::isToolAvailable)
+            ));
         }
     }
 }
@@ -0,0 +1,327 @@
+package com.smntoast.client.media;
+
+import com.smntoast.SmnToast;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Shares a single media poller between all game instances of the same user.
+ * The instance holding the lock file is the leader: it polls its backend and streams
+ * track changes over a Unix domain socket. Every other instance follows that stream
+ * and competes for the lock again once the leader goes away.
+ * <p>
+ * Both sides open with {@link #MAGIC} and {@link #PROTOCOL_VERSION}. An instance that meets a
+ * leader speaking another version polls on its own instead. Each follower gets its own writer
+ * thread and a bounded queue, so a follower that stops reading is dropped instead of
+ * stalling the leader's poll loop.
+ */
+public class LocalMediaAgent implements AutoCloseable {
+    // First byte is outside the message kinds, so builds without the handshake reject it
+    private static final int MAGIC = 0x534D4E54;
+    // Bump whenever a message layout changes
+    private static final int PROTOCOL_VERSION = 1;
+    private static final int FOLLOWER_QUEUE_SIZE = 16;
+
+    private static final byte MSG_TRACK = 1;
+    private static final byte MSG_ALERT = 2;
+    private static final byte MSG_NO_ALERT = 3;
+    private static final long RETRY_DELAY_MS = 500L;
+
+    private final Path lockPath;
+    private final Path socketPath;
+    private final List<Follower> followers = new ArrayList<>();
+    private FileChannel lockChannel;
+    private FileLock lock;
+    private ServerSocketChannel server;
+    private volatile boolean leader = false;
+    private volatile boolean closed = false;
+    private volatile boolean standalone = false;
+    private TrackInfo lastTrack;
+    private String[] lastAlert;
+
+    public LocalMediaAgent() {
+        Path dir = runtimeDir();
+        this.lockPath = dir.resolve("smn-toast.lock");
+        this.socketPath = dir.resolve("smn-toast.sock");
+    }
+
+    private static Path runtimeDir() {
+        String xdgRuntime = System.getenv("XDG_RUNTIME_DIR");
+        if (xdgRuntime != null && !xdgRuntime.isEmpty()) {
+            return Path.of(xdgRuntime);
+        }
+        return Path.of(System.getProperty("java.io.tmpdir"), "smn-toast-" + System.getProperty("user.name"));
+    }
+
+    /**
+     * Returns true if this instance should poll the backend itself, either because it
+     * won the election, because the agent could not be set up at all, or because the
+     * leader runs an incompatible version.
+     */
+    public boolean tryBecomeLeader() {
+        if (leader || closed || standalone) {
+            return true;
+        }
+        try {
+            Files.createDirectories(socketPath.getParent());
+            if (lockChannel == null) {
+                lockChannel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            }
+            lock = lockChannel.tryLock();
+            if (lock == null) {
+                return false;
+            }
+
+            Files.deleteIfExists(socketPath);
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            server.bind(UnixDomainSocketAddress.of(socketPath));
+
+            Thread acceptThread = new Thread(this::acceptFollowers, "Media-Agent");
+            acceptThread.setDaemon(true);
+            acceptThread.start();
+            SmnToast.LOGGER.info("Local media agent started at {}", socketPath);
+        } catch (IOException e) {
+            SmnToast.LOGGER.debug("Local media agent unavailable, polling standalone: {}", e.getMessage());
+            releaseLeadership();
+        }
+        leader = true;
+        return true;
+    }
+
+    /**
+     * Streams track and alert updates from the current leader until it disconnects.
+     * Returns immediately (after a short delay) if no leader is reachable yet.
+     */
+    public void follow(Consumer<TrackInfo> onTrack, Consumer<String[]> onAlert) throws InterruptedException {
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            out.writeInt(MAGIC);
+            out.writeInt(PROTOCOL_VERSION);
+            out.flush();
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            int magic = in.readInt();
+            int version = in.readInt();
+            if (magic != MAGIC || version != PROTOCOL_VERSION) {
+                SmnToast.LOGGER.warn("Local media agent at {} speaks protocol {} (this build: {}), polling standalone",
+                        socketPath, magic == MAGIC ? version : "unknown", PROTOCOL_VERSION);
+                standalone = true;
+                return;
+            }
+            SmnToast.LOGGER.info("Following local media agent at {}", socketPath);
+            while (true) {
+                byte kind = in.readByte();
+                switch (kind) {
+                    case MSG_TRACK -> onTrack.accept(new TrackInfo(
+                            in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), in.readBoolean(), in.readLong()));
+                    case MSG_ALERT -> onAlert.accept(new String[]{in.readUTF(), in.readUTF()});
+                    case MSG_NO_ALERT -> onAlert.accept(null);
+                    default -> throw new IOException("Unknown agent message " + kind);
+                }
+            }
+        } catch (EOFException e) {
+            SmnToast.LOGGER.info("Local media agent leader exited");
+        } catch (ClosedByInterruptException e) {
+            throw new InterruptedException();
+        } catch (IOException e) {
+            SmnToast.LOGGER.debug("Local media agent not reachable: {}", e.getMessage());
+            Thread.sleep(RETRY_DELAY_MS);
+        }
+    }
+
+    /**
+     * Sends the leader's latest state to followers, skipping anything unchanged; a position that
+     * only progressed counts as unchanged, a seek does not. Never blocks on a follower: messages
+     * are queued, and a follower whose queue is full is dropped.
+     */
+    public synchronized void publish(TrackInfo track, String[] alert) {
+        if (track != null && (!track.equals(lastTrack) || track.isSeekFrom(lastTrack))) {
+            lastTrack = track;
+            broadcast(encodeTrack(track));
+        }
+        if (!Arrays.equals(alert, lastAlert)) {
+            lastAlert = alert;
+            broadcast(encodeAlert(alert));
+        }
+    }
+
+    private void broadcast(byte[] message) {
+        for (Follower follower : new ArrayList<>(followers)) {
+            if (!follower.queue.offer(message)) {
+                SmnToast.LOGGER.debug("Media agent follower is not reading, dropping it");
+                dropFollower(follower);
+            }
+        }
+    }
+
+    private void acceptFollowers() {
+        while (!closed) {
+            try {
+                Follower follower = new Follower(server.accept());
+                synchronized (this) {
+                    // Queued before the handshake completes, and sent right after it
+                    if (lastTrack != null) {
+                        follower.queue.add(encodeTrack(lastTrack));
+                    }
+                    follower.queue.add(encodeAlert(lastAlert));
+                    followers.add(follower);
+                    SmnToast.LOGGER.debug("Media agent follower connected ({} total)", followers.size());
+                }
+                follower.thread.start();
+            } catch (AsynchronousCloseException e) {
+                break;
+            } catch (IOException e) {
+                SmnToast.LOGGER.debug("Media agent accept error: {}", e.getMessage());
+            }
+        }
+    }
+
+    private synchronized void dropFollower(Follower follower) {
+        if (!followers.remove(follower)) {
+            return;
+        }
+        follower.close();
+        SmnToast.LOGGER.debug("Media agent follower disconnected ({} left)", followers.size());
+    }
+
+    /**
+     * One connected follower. Its thread does the handshake, then writes queued messages
+     * until the follower disconnects or is dropped.
+     */
+    private class Follower implements Runnable {
+        private final SocketChannel channel;
+        private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(FOLLOWER_QUEUE_SIZE);
+        private final Thread thread;
+
+        Follower(SocketChannel channel) {
+            this.channel = channel;
+            this.thread = new Thread(this, "Media-Agent-Follower");
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+                out.writeInt(MAGIC);
+                out.writeInt(PROTOCOL_VERSION);
+                out.flush();
+
+                DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+                int magic = in.readInt();
+                int version = in.readInt();
+                if (magic != MAGIC || version != PROTOCOL_VERSION) {
+                    SmnToast.LOGGER.debug("Rejecting media agent follower speaking protocol {}", version);
+                    dropFollower(this);
+                    return;
+                }
+
+                while (true) {
+                    out.write(queue.take());
+                    out.flush();
+                }
+            } catch (IOException | InterruptedException e) {
+                dropFollower(this);
+            }
+        }
+
+        void close() {
+            thread.interrupt();
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static byte[] encodeTrack(TrackInfo track) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(MSG_TRACK);
+            out.writeUTF(nullToEmpty(track.getTrackId()));
+            out.writeUTF(nullToEmpty(track.getTitle()));
+            out.writeUTF(nullToEmpty(track.getArtist()));
+            out.writeUTF(nullToEmpty(track.getAlbum()));
+            out.writeBoolean(track.isPlaying());
+            out.writeLong(track.getPositionMs(System.currentTimeMillis()));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeAlert(String[] alert) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            if (alert == null) {
+                out.writeByte(MSG_NO_ALERT);
+            } else {
+                out.writeByte(MSG_ALERT);
+                out.writeUTF(nullToEmpty(alert[0]));
+                out.writeUTF(nullToEmpty(alert[1]));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private synchronized void releaseLeadership() {
+        for (Follower follower : new ArrayList<>(followers)) {
+            dropFollower(follower);
+        }
+        try {
+            if (server != null) {
+                server.close();
+                Files.deleteIfExists(socketPath);
+            }
+            if (lock != null) {
+                lock.release();
+            }
+            if (lockChannel != null) {
+                lockChannel.close();
+            }
+        } catch (IOException e) {
+            SmnToast.LOGGER.debug("Error releasing local media agent: {}", e.getMessage());
+        }
+        server = null;
+        lock = null;
+        lockChannel = null;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        releaseLeadership();
+    }
+}
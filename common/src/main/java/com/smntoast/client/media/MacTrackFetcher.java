@@ -2,6 +2,9 @@ package com.smntoast.client.media;
 
 import com.smntoast.SmnToast;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public class MacTrackFetcher implements TrackFetcher {
     @Override
     public TrackInfo fetchCurrentTrack() {
@@ -23,7 +26,8 @@ public class MacTrackFetcher implements TrackFetcher {
                     "-e", "      set trackName to name of current track",
                     "-e", "      set trackArtist to artist of current track",
                     "-e", "      set trackAlbum to album of current track",
-                    "-e", "      return \"STATUS:Playing\" & linefeed & \"TITLE:\" & trackName & linefeed & \"ARTIST:\" & trackArtist & linefeed & \"ALBUM:\" & trackAlbum",
+                    "-e", "      set trackPosition to round ((player position) * 1000)",
+                    "-e", "      return \"STATUS:Playing\" & linefeed & \"TITLE:\" & trackName & linefeed & \"ARTIST:\" & trackArtist & linefeed & \"ALBUM:\" & trackAlbum & linefeed & \"POSITION:\" & trackPosition",
                     "-e", "    else",
                     "-e", "      return \"STATUS:Paused\"",
                     "-e", "    end if",
@@ -37,4 +41,41 @@ public class MacTrackFetcher implements TrackFetcher {
             return null;
         }
     }
+
+    public static class Provider implements TrackFetcherProvider {
+        @Override
+        public String name() {
+            return "AppleScript";
+        }
+
+        @Override
+        public int priority() {
+            return 100;
+        }
+
+        @Override
+        public Mode mode() {
+            return Mode.PULL;
+        }
+
+        @Override
+        public Cost cost() {
+            return Cost.HIGH;
+        }
+
+        @Override
+        public Set<Platform> platforms() {
+            return EnumSet.of(Platform.MAC);
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public TrackFetcher create() {
+            return new MacTrackFetcher();
+        }
+    }
 }
@@ -1,47 +1,102 @@
 package com.smntoast.client.media;
 
 import com.smntoast.SmnToast;
+import com.smntoast.client.jfr.AvailabilityRecheckEvent;
+import com.smntoast.client.jfr.MediaPollEvent;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceLoader;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Cross-platform media listener that monitors music playback.
- * - Linux: Uses MPRIS via playerctl (supports native and Flatpak)
- * - Windows: Uses SMTC (System Media Transport Controls) via PowerShell
- * - macOS: Uses AppleScript via osascript
+ * Backends are {@link TrackFetcherProvider}s discovered through {@link ServiceLoader}; the
+ * available one with the highest priority for the current platform is used:
+ * - Any: "now playing" file written by OBS plugins or scrobblers, when configured
+ * - Linux/macOS: MPD protocol when a server is reachable, handing over to the next backend while MPD is idle
+ * - Linux: MPRIS via playerctl (supports native and Flatpak)
+ * - Windows: SMTC (System Media Transport Controls) via PowerShell
+ * - macOS: AppleScript via osascript
+ * When several game instances run at once, only the {@link LocalMediaAgent} leader creates
+ * the backend and polls; the others receive its updates.
  */
 public class MediaListener {
-    private static final String OS_NAME = System.getProperty("os.name").toLowerCase();
-    private static final boolean IS_WINDOWS = OS_NAME.contains("win");
-    private static final boolean IS_LINUX = OS_NAME.contains("nux") || OS_NAME.contains("nix");
-    private static final boolean IS_MAC = OS_NAME.contains("mac");
-
-    private final TrackFetcher trackFetcher;
+    private final TrackFetcherProvider provider;
+    private final TrackFetcherProvider fallbackProvider;
+    private final String backendName;
+    // Created once this instance becomes the leader
+    private volatile TrackFetcher trackFetcher;
+    private final LocalMediaAgent agent = new LocalMediaAgent();
     private Thread listenerThread;
     private volatile boolean running = false;
     private final AtomicReference<TrackInfo> currentTrack = new AtomicReference<>(null);
     private final AtomicReference<String[]> startupAlert = new AtomicReference<>(null);
 
     private static final long RECHECK_INTERVAL_MS = 60000L;
+    private static final long STOP_TIMEOUT_MS = 2000L;
+    private static final long ERROR_BACKOFF_MS = 500L;
+    private static final long MAX_ERROR_BACKOFF_MS = 30000L;
     private long lastRecheckTime = System.currentTimeMillis();
+    private String lastProbe;
 
     public MediaListener() {
-        if (IS_WINDOWS) {
-            SmnToast.LOGGER.info("Windows detected, using SMTC for media info");
-            trackFetcher = new WindowsTrackFetcher();
-        } else if (IS_LINUX) {
-            SmnToast.LOGGER.info("Linux detected, using MPRIS for media info");
-            trackFetcher = new LinuxTrackFetcher();
-        } else if (IS_MAC) {
-            SmnToast.LOGGER.info("macOS detected, using AppleScript for media info");
-            trackFetcher = new MacTrackFetcher();
+        TrackFetcherProvider.Platform platform = TrackFetcherProvider.Platform.current();
+        Iterator<TrackFetcherProvider> available = availableProviders(platform);
+        if (!available.hasNext()) {
+            SmnToast.LOGGER.warn("Unsupported OS: {}. Media detection may not work.", System.getProperty("os.name"));
+            throw new IllegalStateException("No media backend available for " + System.getProperty("os.name"));
+        }
+        provider = available.next();
+        SmnToast.LOGGER.info("Using {} for media info ({} mode, {} cost)",
+                provider.name(), provider.mode(), provider.cost());
+        if (provider.yieldsWhenIdle() && available.hasNext()) {
+            fallbackProvider = available.next();
+            SmnToast.LOGGER.info("Falling back to {} while {} is idle", fallbackProvider.name(), provider.name());
+            backendName = provider.name() + "+" + fallbackProvider.name();
         } else {
-            SmnToast.LOGGER.warn("Unsupported OS: {}. Media detection may not work.", OS_NAME);
-            throw new IllegalStateException("Unsupported OS: " + OS_NAME);
+            fallbackProvider = null;
+            backendName = provider.name();
         }
-        startupAlert.set(trackFetcher.getStartupAlert());
     }
-    
+
+    private TrackFetcher createFetcher() {
+        TrackFetcher fetcher = provider.create();
+        if (fallbackProvider != null) {
+            fetcher = new IdleFallbackTrackFetcher(fetcher, fallbackProvider.create());
+        }
+        return fetcher;
+    }
+
+    /**
+     * Providers for {@code platform} by priority, then cost. Availability is checked lazily,
+     * so only as many providers are probed as are actually used.
+     */
+    private static Iterator<TrackFetcherProvider> availableProviders(TrackFetcherProvider.Platform platform) {
+        List<TrackFetcherProvider> candidates = new ArrayList<>();
+        for (TrackFetcherProvider provider : ServiceLoader.load(TrackFetcherProvider.class, MediaListener.class.getClassLoader())) {
+            if (provider.platforms().contains(platform)) {
+                candidates.add(provider);
+            }
+        }
+        candidates.sort(Comparator.comparingInt(TrackFetcherProvider::priority).reversed()
+                .thenComparing(TrackFetcherProvider::cost));
+
+        return candidates.stream().filter(provider -> {
+            try {
+                if (provider.isAvailable()) {
+                    return true;
+                }
+                SmnToast.LOGGER.debug("Media backend {} not available", provider.name());
+            } catch (Exception e) {
+                SmnToast.LOGGER.debug("Media backend {} failed availability check: {}", provider.name(), e.getMessage());
+            }
+            return false;
+        }).iterator();
+    }
+
     public void start() {
         if (running) {
             return;
@@ -57,32 +112,104 @@ public class MediaListener {
         running = false;
         if (listenerThread != null) {
             listenerThread.interrupt();
+            try {
+                listenerThread.join(STOP_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        agent.close();
+        TrackFetcher fetcher = trackFetcher;
+        if (fetcher != null) {
+            fetcher.close();
         }
     }
     
     private void pollMedia() {
+        long errorBackoffMs = ERROR_BACKOFF_MS;
         while (running) {
+            MediaPollEvent event = null;
             try {
+                if (!agent.tryBecomeLeader()) {
+                    agent.follow(currentTrack::set, startupAlert::set);
+                    continue;
+                }
+                if (trackFetcher == null) {
+                    trackFetcher = createFetcher();
+                    startupAlert.set(trackFetcher.getStartupAlert());
+                    lastRecheckTime = System.currentTimeMillis();
+                }
                 long now = System.currentTimeMillis();
                 if (now - lastRecheckTime >= RECHECK_INTERVAL_MS) {
                     lastRecheckTime = now;
-                    trackFetcher.recheckAvailability();
-                    startupAlert.set(trackFetcher.getStartupAlert());
+                    recheckAvailability();
+                }
+                event = new MediaPollEvent();
+                event.begin();
+                String probe = trackFetcher.probe();
+                TrackInfo track;
+                String result;
+                if (probe != null && probe.equals(lastProbe)) {
+                    track = currentTrack.get();
+                    result = MediaPollEvent.PROBE_HIT;
+                } else {
+                    track = trackFetcher.fetchCurrentTrack();
+                    lastProbe = track != null ? probe : null;
+                    result = track != null ? MediaPollEvent.FETCHED : MediaPollEvent.NO_TRACK;
                 }
-                TrackInfo track = trackFetcher.fetchCurrentTrack();
                 if (track != null) {
                     currentTrack.set(track);
                 }
+                commit(event, result);
+                event = null;
+                agent.publish(track, startupAlert.get());
+                errorBackoffMs = ERROR_BACKOFF_MS;
                 Thread.sleep(500);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 break;
             } catch (Exception e) {
                 SmnToast.LOGGER.debug("Media poll error: {}", e.getMessage());
+                if (event != null) {
+                    commit(event, MediaPollEvent.ERROR);
+                }
+                // Back off, or a backend that keeps failing (e.g. in create()) spins this thread
+                try {
+                    Thread.sleep(errorBackoffMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                errorBackoffMs = Math.min(errorBackoffMs * 2, MAX_ERROR_BACKOFF_MS);
             }
         }
     }
 
+    private void recheckAvailability() {
+        AvailabilityRecheckEvent event = new AvailabilityRecheckEvent();
+        event.begin();
+        trackFetcher.recheckAvailability();
+        startupAlert.set(trackFetcher.getStartupAlert());
+        int liveChildren = ProcessSupervisor.getLiveChildCount();
+        SmnToast.LOGGER.debug("{} media child processes alive", liveChildren);
+        event.end();
+        if (event.shouldCommit()) {
+            event.backend = backendName;
+            event.alert = startupAlert.get() != null;
+            event.liveChildren = liveChildren;
+            event.commit();
+        }
+    }
+
+    private void commit(MediaPollEvent event, String result) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.backend = backendName;
+            event.result = result;
+            event.commit();
+        }
+    }
+
     public TrackInfo getCurrentTrack() {
         return currentTrack.get();
     }
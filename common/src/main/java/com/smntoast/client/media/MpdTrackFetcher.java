@@ -0,0 +1,274 @@
+package com.smntoast.client.media;
+
+import com.smntoast.SmnToast;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Talks to MPD directly over its text protocol. A background thread keeps one connection
+ * open and blocks in {@code idle player}, so playback changes arrive as soon as MPD reports
+ * them and {@link #fetchCurrentTrack()} only returns the latest known state.
+ * Endpoint follows the MPD client convention: {@code MPD_HOST} ({@code [password@]host} or a
+ * socket path) and {@code MPD_PORT}.
+ */
+public class MpdTrackFetcher implements TrackFetcher {
+    private static final String DEFAULT_HOST = "localhost";
+    private static final int DEFAULT_PORT = 6600;
+    private static final long RECONNECT_DELAY_MS = 5000L;
+    private static final int CONNECT_TIMEOUT_MS = 300;
+
+    private final SocketAddress address;
+    private final String password;
+    private final long reconnectDelayMs;
+    private final AtomicReference<TrackInfo> currentTrack = new AtomicReference<>(null);
+    private volatile String[] startupAlert;
+    private volatile boolean running = true;
+    private volatile SocketChannel channel;
+    private final Thread idleThread;
+
+    public MpdTrackFetcher() {
+        this(System.getenv("MPD_HOST"), System.getenv("MPD_PORT"), RECONNECT_DELAY_MS);
+    }
+
+    /**
+     * @param host value of {@code MPD_HOST}, or null
+     * @param port value of {@code MPD_PORT}, or null
+     */
+    MpdTrackFetcher(String host, String port, long reconnectDelayMs) {
+        int at = host != null ? host.indexOf('@') : -1;
+        this.password = at > 0 ? host.substring(0, at) : null;
+        this.address = configuredAddress(host, port);
+        this.reconnectDelayMs = reconnectDelayMs;
+
+        idleThread = new Thread(this::idleLoop, "MPD-Listener");
+        idleThread.setDaemon(true);
+        idleThread.start();
+    }
+
+    private static SocketAddress configuredAddress(String host, String port) {
+        if (host != null && host.indexOf('@') > 0) {
+            host = host.substring(host.indexOf('@') + 1);
+        }
+        if (host == null || host.isEmpty()) {
+            host = DEFAULT_HOST;
+        }
+        if (host.startsWith("/")) {
+            return UnixDomainSocketAddress.of(host);
+        }
+
+        try {
+            return new InetSocketAddress(host, port != null && !port.isEmpty() ? Integer.parseInt(port.trim()) : DEFAULT_PORT);
+        } catch (NumberFormatException e) {
+            SmnToast.LOGGER.warn("Invalid MPD_PORT '{}', using {}", port, DEFAULT_PORT);
+            return new InetSocketAddress(host, DEFAULT_PORT);
+        }
+    }
+
+    /**
+     * Whether an MPD server answers on the endpoint configured through the environment.
+     * Runs during client start-up, so a TCP endpoint gets only {@link #CONNECT_TIMEOUT_MS}.
+     */
+    public static boolean isAvailable() {
+        SocketAddress address = configuredAddress(System.getenv("MPD_HOST"), System.getenv("MPD_PORT"));
+        if (address instanceof InetSocketAddress inet) {
+            try (Socket socket = new Socket()) {
+                socket.connect(inet, CONNECT_TIMEOUT_MS);
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        try (SocketChannel ignored = SocketChannel.open(address)) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public TrackInfo fetchCurrentTrack() {
+        return currentTrack.get();
+    }
+
+    @Override
+    public String[] getStartupAlert() {
+        return startupAlert;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        idleThread.interrupt();
+        SocketChannel open = channel;
+        if (open != null) {
+            try {
+                open.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void idleLoop() {
+        while (running) {
+            try (SocketChannel ch = SocketChannel.open(address)) {
+                channel = ch;
+                BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(ch), StandardCharsets.UTF_8));
+                OutputStream out = Channels.newOutputStream(ch);
+
+                String greeting = in.readLine();
+                if (greeting == null || !greeting.startsWith("OK MPD")) {
+                    throw new IOException("Unexpected MPD greeting: " + greeting);
+                }
+                if (password != null) {
+                    send(out, "password " + quote(password));
+                    readResponse(in);
+                }
+                startupAlert = null;
+                SmnToast.LOGGER.info("Connected to MPD at {}", address);
+
+                while (running) {
+                    send(out, "command_list_begin\ncurrentsong\nstatus\ncommand_list_end");
+                    currentTrack.set(toTrackInfo(readResponse(in)));
+                    send(out, "idle player");
+                    readResponse(in);
+                }
+            } catch (IOException e) {
+                if (!running) {
+                    break;
+                }
+                SmnToast.LOGGER.debug("MPD connection error: {}", e.getMessage());
+                currentTrack.set(null);
+                startupAlert = new String[]{"MPD not reachable", "Check MPD_HOST and MPD_PORT"};
+            } finally {
+                channel = null;
+            }
+            try {
+                Thread.sleep(reconnectDelayMs);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    private static void send(OutputStream out, String command) throws IOException {
+        out.write((command + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static Map<String, String> readResponse(BufferedReader in) throws IOException {
+        Map<String, String> fields = new HashMap<>();
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.equals("OK")) {
+                return fields;
+            }
+            if (line.startsWith("ACK ")) {
+                throw new IOException("MPD error: " + line);
+            }
+            int sep = line.indexOf(": ");
+            if (sep > 0) {
+                fields.putIfAbsent(line.substring(0, sep), line.substring(sep + 2));
+            }
+        }
+        throw new IOException("MPD closed the connection");
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static TrackInfo toTrackInfo(Map<String, String> fields) {
+        if (!"play".equals(fields.get("state"))) {
+            return new TrackInfo("", "", "", "", false);
+        }
+
+        String file = fields.get("file");
+        String title = fields.get("Title");
+        if ((title == null || title.isEmpty()) && file != null) {
+            title = file.substring(file.lastIndexOf('/') + 1);
+        }
+        if (title == null || title.isEmpty()) {
+            return null;
+        }
+
+        String artist = fields.get("Artist");
+        String album = fields.get("Album");
+        String trackId = file != null ? file : (title + "-" + artist).hashCode() + "";
+
+        long positionMs = -1L;
+        String elapsed = fields.get("elapsed");
+        if (elapsed != null) {
+            try {
+                positionMs = (long) (Double.parseDouble(elapsed) * 1000);
+            } catch (NumberFormatException ignored) {
+            }
+        }
+
+        return new TrackInfo(
+                trackId,
+                title.trim(),
+                artist != null && !artist.isEmpty() ? artist.trim() : "Unknown Artist",
+                album != null ? album.trim() : "",
+                true,
+                positionMs
+        );
+    }
+
+    public static class Provider implements TrackFetcherProvider {
+        @Override
+        public String name() {
+            return "MPD";
+        }
+
+        @Override
+        public int priority() {
+            return 200;
+        }
+
+        @Override
+        public Mode mode() {
+            return Mode.PUSH;
+        }
+
+        @Override
+        public Cost cost() {
+            return Cost.LOW;
+        }
+
+        @Override
+        public Set<Platform> platforms() {
+            return EnumSet.of(Platform.LINUX, Platform.MAC);
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return MpdTrackFetcher.isAvailable();
+        }
+
+        // A system mpd is often running but idle while music plays in another player
+        @Override
+        public boolean yieldsWhenIdle() {
+            return true;
+        }
+
+        @Override
+        public TrackFetcher create() {
+            return new MpdTrackFetcher();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.smntoast.client.media;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.smntoast.SmnToast;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reads the "now playing" file written by OBS plugins and scrobblers, set with
+ * {@code -Dsmn-toast.nowPlayingFile=<path>}. The file is re-parsed only when a
+ * {@link WatchService} event reports it changed.
+ * Accepts JSON ({@code title}, {@code artist} or {@code artists}, {@code album},
+ * {@code status} or {@code playing}) or plain text whose first line is {@code Artist - Title}.
+ */
+public class NowPlayingFileTrackFetcher implements TrackFetcher {
+    private static final String FILE_PROPERTY = "smn-toast.nowPlayingFile";
+
+    private final Path file;
+    private final AtomicReference<TrackInfo> currentTrack = new AtomicReference<>(null);
+    private WatchService watchService;
+
+    /**
+     * @param file absolute path with a parent directory, as returned by {@link #configuredFile()}
+     */
+    public NowPlayingFileTrackFetcher(Path file) {
+        this.file = file;
+        currentTrack.set(parseFile());
+        try {
+            watchService = file.getFileSystem().newWatchService();
+            file.getParent().register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+            Thread watchThread = new Thread(this::watchLoop, "Now-Playing-Watcher");
+            watchThread.setDaemon(true);
+            watchThread.start();
+            SmnToast.LOGGER.info("Watching now playing file {}", file);
+        } catch (IOException e) {
+            SmnToast.LOGGER.warn("Cannot watch now playing file {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * The file set through {@value #FILE_PROPERTY}, or null if it is unset or cannot be watched
+     * (malformed, or a root with no directory to watch).
+     */
+    static Path configuredFile() {
+        String path = System.getProperty(FILE_PROPERTY);
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        try {
+            Path file = Path.of(path).toAbsolutePath();
+            if (file.getParent() == null || file.getFileName() == null) {
+                SmnToast.LOGGER.warn("Now playing file {} has no parent directory to watch", path);
+                return null;
+            }
+            return file;
+        } catch (InvalidPathException e) {
+            SmnToast.LOGGER.warn("Invalid now playing file {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public TrackInfo fetchCurrentTrack() {
+        return currentTrack.get();
+    }
+
+    @Override
+    public void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                if (changed) {
+                    currentTrack.set(parseFile());
+                }
+                if (!key.reset()) {
+                    SmnToast.LOGGER.warn("Now playing directory {} is no longer accessible", file.getParent());
+                    break;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+
+    private TrackInfo parseFile() {
+        try {
+            if (!Files.isRegularFile(file)) {
+                return new TrackInfo("", "", "", "", false);
+            }
+            String content = Files.readString(file, StandardCharsets.UTF_8).trim();
+            return content.startsWith("{") ? parseJson(content) : parseText(content);
+        } catch (Exception e) {
+            SmnToast.LOGGER.debug("Error reading now playing file: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static TrackInfo parseText(String content) {
+        String line = content.lines().findFirst().orElse("").trim();
+        if (line.isEmpty()) {
+            return new TrackInfo("", "", "", "", false);
+        }
+
+        String artist = "";
+        String title = line;
+        int sep = line.indexOf(" - ");
+        if (sep > 0) {
+            artist = line.substring(0, sep).trim();
+            title = line.substring(sep + 3).trim();
+        }
+        return toTrackInfo(title, artist, "");
+    }
+
+    private static TrackInfo parseJson(String content) {
+        JsonObject json = JsonParser.parseString(content).getAsJsonObject();
+
+        if (json.has("playing") && !json.get("playing").getAsBoolean()) {
+            return new TrackInfo("", "", "", "", false);
+        }
+        if (json.has("status") && !json.get("status").getAsString().equalsIgnoreCase("playing")) {
+            return new TrackInfo("", "", "", "", false);
+        }
+
+        String artist = getString(json, "artist");
+        if (artist.isEmpty() && json.has("artists") && json.get("artists").isJsonArray()) {
+            JsonArray artists = json.getAsJsonArray("artists");
+            StringBuilder joined = new StringBuilder();
+            for (JsonElement element : artists) {
+                if (!joined.isEmpty()) {
+                    joined.append(", ");
+                }
+                joined.append(element.getAsString());
+            }
+            artist = joined.toString();
+        }
+        return toTrackInfo(getString(json, "title"), artist, getString(json, "album"));
+    }
+
+    private static String getString(JsonObject json, String key) {
+        JsonElement element = json.get(key);
+        return element != null && element.isJsonPrimitive() ? element.getAsString().trim() : "";
+    }
+
+    private static TrackInfo toTrackInfo(String title, String artist, String album) {
+        if (title.isEmpty()) {
+            return new TrackInfo("", "", "", "", false);
+        }
+        return new TrackInfo(
+                (title + "-" + artist).hashCode() + "",
+                title,
+                !artist.isEmpty() ? artist : "Unknown Artist",
+                album,
+                true
+        );
+    }
+
+    public static class Provider implements TrackFetcherProvider {
+        @Override
+        public String name() {
+            return "Now playing file";
+        }
+
+        @Override
+        public int priority() {
+            return 300;
+        }
+
+        @Override
+        public Mode mode() {
+            return Mode.PUSH;
+        }
+
+        @Override
+        public Cost cost() {
+            return Cost.LOW;
+        }
+
+        @Override
+        public Set<Platform> platforms() {
+            return EnumSet.allOf(Platform.class);
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return configuredFile() != null;
+        }
+
+        @Override
+        public TrackFetcher create() {
+            return new NowPlayingFileTrackFetcher(configuredFile());
+        }
+    }
+}
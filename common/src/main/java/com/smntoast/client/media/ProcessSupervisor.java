@@ -0,0 +1,90 @@
+package com.smntoast.client.media;
+
+import com.smntoast.SmnToast;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Owns every child process the mod spawns. Caps how many can be alive at once, kills a
+ * child together with its descendants (e.g. a shell wrapper's own children), and can tear
+ * all of them down when the client shuts down.
+ */
+public class ProcessSupervisor {
+    private static final int MAX_CHILDREN = 4;
+    private static final long REAP_TIMEOUT_MS = 1000L;
+
+    private static final Semaphore permits = new Semaphore(MAX_CHILDREN);
+    private static final Set<Process> children = ConcurrentHashMap.newKeySet();
+    private static volatile boolean shutDown = false;
+
+    /**
+     * Starts {@code builder} once a slot is free, waiting at most {@code waitMs}.
+     * Returns null if no slot freed up in time or the supervisor has been shut down.
+     */
+    public static Process start(ProcessBuilder builder, long waitMs) throws IOException, InterruptedException {
+        if (shutDown) {
+            return null;
+        }
+        if (!permits.tryAcquire(waitMs, TimeUnit.MILLISECONDS)) {
+            SmnToast.LOGGER.debug("{} child processes already running, skipping {}", MAX_CHILDREN, builder.command().getFirst());
+            return null;
+        }
+
+        Process process;
+        try {
+            process = builder.start();
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        children.add(process);
+        // The slot is only freed once the process has really exited
+        process.onExit().thenRun(() -> {
+            if (children.remove(process)) {
+                permits.release();
+            }
+        });
+        if (shutDown) {
+            kill(process);
+            return null;
+        }
+        return process;
+    }
+
+    /**
+     * Kills {@code process} and all of its descendants, then waits briefly for it to exit.
+     */
+    public static void kill(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+        try {
+            if (!process.waitFor(REAP_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                SmnToast.LOGGER.warn("Child process {} did not exit after being killed", process.pid());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Number of spawned children that have not exited yet.
+     */
+    public static int getLiveChildCount() {
+        return children.size();
+    }
+
+    /**
+     * Kills every tracked child and refuses to start new ones.
+     */
+    public static void shutdown() {
+        shutDown = true;
+        for (Process process : children) {
+            kill(process);
+        }
+        SmnToast.LOGGER.debug("Process supervisor shut down, {} children still alive", children.size());
+    }
+}
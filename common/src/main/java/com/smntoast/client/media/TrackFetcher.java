@@ -3,10 +3,23 @@ package com.smntoast.client.media;
 public interface TrackFetcher {
     TrackInfo fetchCurrentTrack();
 
+    /**
+     * First phase of a two-phase fetch: a cheap key for the current player, playback status and
+     * track. Callers skip {@link #fetchCurrentTrack()} while the key is unchanged, and a fetch that
+     * follows a probe may reuse what the probe read. Returns null when the backend has no query
+     * cheaper than a full fetch.
+     */
+    default String probe() {
+        return null;
+    }
+
     default String[] getStartupAlert() {
         return null;
     }
 
     default void recheckAvailability() {
     }
+
+    default void close() {
+    }
 }
@@ -0,0 +1,78 @@
+package com.smntoast.client.media;
+
+import java.util.Set;
+
+/**
+ * Service provider for a media backend, discovered through {@link java.util.ServiceLoader}.
+ * Register implementations in {@code META-INF/services/com.smntoast.client.media.TrackFetcherProvider}.
+ * {@link MediaListener} picks the available provider with the highest priority for the current
+ * platform, preferring the cheaper one on ties. A provider that {@link #yieldsWhenIdle() yields when
+ * idle} is paired with the next available one, which answers while nothing plays on the first.
+ */
+public interface TrackFetcherProvider {
+    enum Mode {
+        /** Backend is notified of changes and {@link TrackFetcher#fetchCurrentTrack()} just reads cached state. */
+        PUSH,
+        /** Every {@link TrackFetcher#fetchCurrentTrack()} call queries the player. */
+        PULL
+    }
+
+    enum Cost {
+        LOW,
+        MEDIUM,
+        HIGH
+    }
+
+    enum Platform {
+        WINDOWS,
+        LINUX,
+        MAC,
+        OTHER;
+
+        private static final Platform CURRENT = detect();
+
+        private static Platform detect() {
+            String os = System.getProperty("os.name").toLowerCase();
+            if (os.contains("win")) {
+                return WINDOWS;
+            }
+            if (os.contains("nux") || os.contains("nix")) {
+                return LINUX;
+            }
+            if (os.contains("mac")) {
+                return MAC;
+            }
+            return OTHER;
+        }
+
+        public static Platform current() {
+            return CURRENT;
+        }
+    }
+
+    String name();
+
+    int priority();
+
+    Mode mode();
+
+    Cost cost();
+
+    Set<Platform> platforms();
+
+    /**
+     * Cheap check run before {@link #create()}; should not spawn the backend's threads.
+     */
+    boolean isAvailable();
+
+    /**
+     * Whether the next available provider should be asked while this one reports nothing
+     * playing, e.g. a music daemon that is reachable but idle. Only sensible for
+     * {@link Mode#PUSH} providers, which are read on every poll to decide.
+     */
+    default boolean yieldsWhenIdle() {
+        return false;
+    }
+
+    TrackFetcher create();
+}
@@ -1,18 +1,34 @@
 package com.smntoast.client.media;
 
+import java.util.Objects;
+
 public class TrackInfo {
+    // Larger than the jitter of a command's run time, smaller than a deliberate seek
+    public static final long SEEK_TOLERANCE_MS = 2000L;
+
     private final String trackId;
     private final String title;
     private final String artist;
     private final String album;
     private final boolean playing;
+    private final long positionMs;
+    private final long sampledAt;
 
     public TrackInfo(String trackId, String title, String artist, String album, boolean playing) {
+        this(trackId, title, artist, album, playing, -1L);
+    }
+
+    /**
+     * @param positionMs playback position when this info was read, or -1 if the backend does not report it
+     */
+    public TrackInfo(String trackId, String title, String artist, String album, boolean playing, long positionMs) {
         this.trackId = trackId;
         this.title = title;
         this.artist = artist;
         this.album = album;
         this.playing = playing;
+        this.positionMs = positionMs;
+        this.sampledAt = System.currentTimeMillis();
     }
 
     public String getTrackId() {
@@ -34,5 +50,57 @@ public class TrackInfo {
     public boolean isPlaying() {
         return playing;
     }
-}
 
+    /**
+     * This track at a freshly read position, e.g. when its metadata came from a cache.
+     */
+    public TrackInfo withPositionMs(long positionMs) {
+        return new TrackInfo(trackId, title, artist, album, playing, positionMs);
+    }
+
+    public boolean hasPosition() {
+        return positionMs >= 0;
+    }
+
+    /**
+     * Playback position extrapolated to {@code now} while playing, or -1 if unknown.
+     */
+    public long getPositionMs(long now) {
+        if (positionMs < 0) {
+            return -1L;
+        }
+        return playing ? positionMs + Math.max(0L, now - sampledAt) : positionMs;
+    }
+
+    /**
+     * Whether this reading's position differs from {@code previous} extrapolated to the same
+     * moment, i.e. playback was seeked in between. {@link #equals} cannot tell, as it ignores position.
+     */
+    public boolean isSeekFrom(TrackInfo previous) {
+        if (previous == null || hasPosition() != previous.hasPosition()) {
+            return previous != null;
+        }
+        return hasPosition() && Math.abs(positionMs - previous.getPositionMs(sampledAt)) > SEEK_TOLERANCE_MS;
+    }
+
+    // Position is left out so that a track which is simply progressing compares equal
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TrackInfo other)) {
+            return false;
+        }
+        return playing == other.playing
+                && Objects.equals(trackId, other.trackId)
+                && Objects.equals(title, other.title)
+                && Objects.equals(artist, other.artist)
+                && Objects.equals(album, other.album);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(trackId, title, artist, album, playing);
+    }
+}
@@ -12,6 +12,7 @@ public class TrackInfoParser {
         String artist = "";
         String title = "";
         String album = "";
+        long positionMs = -1L;
 
         for (String line : data) {
             if (line.startsWith("STATUS:")) {
@@ -22,6 +23,11 @@ public class TrackInfoParser {
                 title = line.substring(6);
             } else if (line.startsWith("ALBUM:")) {
                 album = line.substring(6);
+            } else if (line.startsWith("POSITION:")) {
+                try {
+                    positionMs = Long.parseLong(line.substring(9).trim());
+                } catch (NumberFormatException ignored) {
+                }
             }
         }
 
@@ -40,7 +46,8 @@ public class TrackInfoParser {
                 title.trim(),
                 artist != null && !artist.isEmpty() ? artist.trim() : "Unknown Artist",
                 album != null ? album.trim() : "",
-                true
+                true,
+                positionMs
         );
     }
 }
@@ -2,6 +2,9 @@ package com.smntoast.client.media;
 
 import com.smntoast.SmnToast;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public class WindowsTrackFetcher implements TrackFetcher {
     @Override
     public TrackInfo fetchCurrentTrack() {
@@ -23,6 +26,12 @@ public class WindowsTrackFetcher implements TrackFetcher {
                 "    Write-Output ('ARTIST:' + $props.Artist);" +
                 "    Write-Output ('TITLE:' + $props.Title);" +
                 "    Write-Output ('ALBUM:' + $props.AlbumTitle);" +
+                // The timeline is only updated on changes, so extrapolate from when it was
+                "    $timeline = $session.GetTimelineProperties();" +
+                "    if ($timeline.EndTime.TotalMilliseconds -gt 0) {" +
+                "      $position = $timeline.Position.TotalMilliseconds + ([DateTimeOffset]::Now - $timeline.LastUpdatedTime).TotalMilliseconds;" +
+                "      if ($position -ge 0 -and $position -le $timeline.EndTime.TotalMilliseconds) { Write-Output ('POSITION:' + [long]$position) }" +
+                "    }" +
                 "  } else {" +
                 "    Write-Output 'STATUS:Paused';" +
                 "  }" +
@@ -41,4 +50,41 @@ public class WindowsTrackFetcher implements TrackFetcher {
             return null;
         }
     }
+
+    public static class Provider implements TrackFetcherProvider {
+        @Override
+        public String name() {
+            return "SMTC";
+        }
+
+        @Override
+        public int priority() {
+            return 100;
+        }
+
+        @Override
+        public Mode mode() {
+            return Mode.PULL;
+        }
+
+        @Override
+        public Cost cost() {
+            return Cost.HIGH;
+        }
+
+        @Override
+        public Set<Platform> platforms() {
+            return EnumSet.of(Platform.WINDOWS);
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public TrackFetcher create() {
+            return new WindowsTrackFetcher();
+        }
+    }
 }
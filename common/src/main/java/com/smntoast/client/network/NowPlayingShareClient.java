@@ -0,0 +1,113 @@
+package com.smntoast.client.network;
+
+import com.smntoast.SmnToast;
+import com.smntoast.client.media.TrackInfo;
+import com.smntoast.network.PeerTrackPayload;
+import com.smntoast.network.ShareTrackPayload;
+import com.smntoast.util.LruCache;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Client side of "now playing" sharing, enabled with {@code -Dsmn-toast.shareNowPlaying=true}.
+ * Track changes are coalesced so at most one share is sent per {@link #MIN_SEND_INTERVAL_MS};
+ * when skipping quickly only the track that ends up playing is sent.
+ */
+public class NowPlayingShareClient {
+    public static final boolean ENABLED = Boolean.getBoolean("smn-toast.shareNowPlaying");
+
+    private static final long MIN_SEND_INTERVAL_MS = 2000L;
+    private static final int FINGERPRINT_CACHE_SIZE = 256;
+
+    private final Consumer<ShareTrackPayload> sender;
+    private final BooleanSupplier canSend;
+    private final boolean enabled;
+    private final LongSupplier clock;
+    private final LruCache<Long, PeerTrack> tracksByFingerprint = new LruCache<>(FINGERPRINT_CACHE_SIZE);
+    private long lastSentFingerprint = 0;
+    private long lastSendTime = 0;
+
+    public record PeerTrack(String title, String artist) {
+    }
+
+    public NowPlayingShareClient(Consumer<ShareTrackPayload> sender, BooleanSupplier canSend) {
+        this(sender, canSend, ENABLED, System::currentTimeMillis);
+    }
+
+    NowPlayingShareClient(Consumer<ShareTrackPayload> sender, BooleanSupplier canSend, boolean enabled, LongSupplier clock) {
+        this.sender = sender;
+        this.canSend = canSend;
+        this.enabled = enabled;
+        this.clock = clock;
+    }
+
+    /**
+     * Called every client tick with the current local track.
+     */
+    public void tick(TrackInfo track) {
+        if (!enabled || track == null || !track.isPlaying()) {
+            return;
+        }
+        long fingerprint = fingerprint(track);
+        long now = clock.getAsLong();
+        if (fingerprint == lastSentFingerprint || now - lastSendTime < MIN_SEND_INTERVAL_MS || !canSend.getAsBoolean()) {
+            return;
+        }
+        lastSentFingerprint = fingerprint;
+        lastSendTime = now;
+        sender.accept(new ShareTrackPayload(fingerprint,
+                truncate(track.getTitle()), truncate(track.getArtist())));
+    }
+
+    /**
+     * Resolves a peer's shared track. Returns null if sharing is off or the fingerprint
+     * is unknown; showing it is left to the caller, which owns the toast cooldown.
+     */
+    public PeerTrack onPeerTrack(PeerTrackPayload payload) {
+        PeerTrack track;
+        if (payload.hasText()) {
+            track = new PeerTrack(payload.title(), payload.artist());
+            tracksByFingerprint.put(payload.fingerprint(), track);
+        } else {
+            track = tracksByFingerprint.get(payload.fingerprint());
+            if (track == null) {
+                SmnToast.LOGGER.debug("Unknown shared track fingerprint {}", payload.fingerprint());
+                return null;
+            }
+        }
+        return enabled ? track : null;
+    }
+
+    /**
+     * Re-shares the current track after a world change. The fingerprint cache is kept
+     * because the server still assumes this client knows those fingerprints.
+     */
+    public void clear() {
+        lastSentFingerprint = 0;
+    }
+
+    private static String truncate(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.length() <= ShareTrackPayload.MAX_TEXT_LENGTH ? text : text.substring(0, ShareTrackPayload.MAX_TEXT_LENGTH);
+    }
+
+    /**
+     * 64-bit FNV-1a over the track id, title and artist.
+     */
+    private static long fingerprint(TrackInfo track) {
+        long hash = 0xcbf29ce484222325L;
+        for (String part : new String[]{track.getTrackId(), track.getTitle(), track.getArtist()}) {
+            String value = part != null ? part : "";
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
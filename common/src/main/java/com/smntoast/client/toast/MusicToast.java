@@ -15,6 +15,7 @@ public class MusicToast implements Toast {
     private final Component title;
     private final Component artist;
     private final boolean alertMode;
+    private final Component header;
     private long startTime;
     private boolean justUpdated;
     private Visibility visibility;
@@ -23,6 +24,7 @@ public class MusicToast implements Toast {
         this.title = Component.literal(truncateText(songTitle, 25));
         this.artist = Component.literal(truncateText(artistName, 30));
         this.alertMode = false;
+        this.header = Component.literal("Now Playing");
         this.justUpdated = true;
         this.visibility = Visibility.SHOW;
     }
@@ -31,11 +33,25 @@ public class MusicToast implements Toast {
         this.title = Component.literal(truncateText(title, 25));
         this.artist = Component.literal(truncateText(subtitle, 30));
         this.alertMode = alertMode;
+        this.header = Component.literal(alertMode ? "Warning" : "Now Playing");
         this.justUpdated = true;
         this.visibility = Visibility.SHOW;
     }
+
+    private MusicToast(Component header, String songTitle, String artistName) {
+        this.title = Component.literal(truncateText(songTitle, 25));
+        this.artist = Component.literal(truncateText(artistName, 30));
+        this.alertMode = false;
+        this.header = header;
+        this.justUpdated = true;
+        this.visibility = Visibility.SHOW;
+    }
+
+    public static MusicToast peer(String playerName, String songTitle, String artistName) {
+        return new MusicToast(Component.literal(truncateText(playerName, 12) + " is playing"), songTitle, artistName);
+    }
     
-    private String truncateText(String text, int maxLength) {
+    private static String truncateText(String text, int maxLength) {
         if (text == null || text.isEmpty()) {
             return "Unknown";
         }
@@ -70,11 +86,11 @@ public class MusicToast implements Toast {
         if (alertMode) {
             String warningIcon = "\u26A0";
             graphics.text(font, Component.literal(warningIcon), 8, 12, 0xFFFFAA00, true);
-            graphics.text(font, Component.literal("Warning"), 26, 7, 0xFFFFAA00, true);
+            graphics.text(font, this.header, 26, 7, 0xFFFFAA00, true);
         } else {
             String musicIcon = "\u266B";
             graphics.text(font, Component.literal(musicIcon), 8, 12, 0xFF55FF55, true);
-            graphics.text(font, Component.literal("Now Playing"), 26, 7, 0xFFFFFF00, true);
+            graphics.text(font, this.header, 26, 7, 0xFFFFFF00, true);
         }
         
         graphics.text(font, this.title, 26, 18, 0xFFFFFFFF, true);
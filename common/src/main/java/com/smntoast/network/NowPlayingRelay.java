@@ -0,0 +1,48 @@
+package com.smntoast.network;
+
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.player.Player;
+
+import java.util.UUID;
+
+/**
+ * Server side of "now playing" sharing. Forwards each player's track changes to nearby
+ * players that have the mod, sending the full title and artist only to receivers that
+ * have not seen that fingerprint yet, and drops shares that exceed the per-player rate.
+ * All methods run on the server thread.
+ */
+public class NowPlayingRelay {
+    private static final double SHARE_RANGE = 128.0;
+
+    public interface Sink {
+        boolean canReceive(ServerPlayer player);
+
+        void send(ServerPlayer player, PeerTrackPayload payload);
+    }
+
+    private final Sink sink;
+    private final RelayLedger ledger = new RelayLedger();
+
+    public NowPlayingRelay(Sink sink) {
+        this.sink = sink;
+    }
+
+    public void onShare(ServerPlayer sender, ShareTrackPayload payload) {
+        if (!ledger.tryAcquire(sender.getUUID(), System.currentTimeMillis())) {
+            return;
+        }
+
+        for (Player other : sender.level().players()) {
+            if (!(other instanceof ServerPlayer receiver) || receiver == sender
+                    || receiver.distanceToSqr(sender) > SHARE_RANGE * SHARE_RANGE
+                    || !sink.canReceive(receiver)) {
+                continue;
+            }
+            sink.send(receiver, ledger.payloadFor(receiver.getUUID(), sender.getUUID(), payload));
+        }
+    }
+
+    public void onDisconnect(UUID player) {
+        ledger.forget(player);
+    }
+}
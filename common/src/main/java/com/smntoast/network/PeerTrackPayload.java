@@ -0,0 +1,49 @@
+package com.smntoast.network;
+
+import com.smntoast.SmnToast;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.Identifier;
+
+import java.util.UUID;
+
+/**
+ * Server to client: another player's current track. Title and artist are null when the
+ * receiver has already been sent this fingerprint and only needs to look it up.
+ */
+public record PeerTrackPayload(UUID player, long fingerprint, String title, String artist) implements CustomPacketPayload {
+    public static final Type<PeerTrackPayload> TYPE =
+            new Type<>(Identifier.fromNamespaceAndPath(SmnToast.MOD_ID, "peer_track"));
+    public static final StreamCodec<FriendlyByteBuf, PeerTrackPayload> CODEC =
+            CustomPacketPayload.codec(PeerTrackPayload::write, PeerTrackPayload::read);
+
+    public boolean hasText() {
+        return title != null;
+    }
+
+    private static PeerTrackPayload read(FriendlyByteBuf buf) {
+        UUID player = buf.readUUID();
+        long fingerprint = buf.readLong();
+        if (!buf.readBoolean()) {
+            return new PeerTrackPayload(player, fingerprint, null, null);
+        }
+        return new PeerTrackPayload(player, fingerprint,
+                buf.readUtf(ShareTrackPayload.MAX_TEXT_LENGTH), buf.readUtf(ShareTrackPayload.MAX_TEXT_LENGTH));
+    }
+
+    private void write(FriendlyByteBuf buf) {
+        buf.writeUUID(player);
+        buf.writeLong(fingerprint);
+        buf.writeBoolean(hasText());
+        if (hasText()) {
+            buf.writeUtf(title, ShareTrackPayload.MAX_TEXT_LENGTH);
+            buf.writeUtf(artist, ShareTrackPayload.MAX_TEXT_LENGTH);
+        }
+    }
+
+    @Override
+    public Type<PeerTrackPayload> type() {
+        return TYPE;
+    }
+}
@@ -0,0 +1,55 @@
+package com.smntoast.network;
+
+import com.smntoast.util.LruCache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-player bookkeeping of {@link NowPlayingRelay}: each sender's share budget, a token bucket
+ * of {@link #BURST} shares refilled one per {@link #REFILL_MS}, and the fingerprints each
+ * receiver has already been sent in full.
+ */
+class RelayLedger {
+    static final int BURST = 3;
+    static final long REFILL_MS = 2000L;
+    // Kept below the receiver's fingerprint cache so anything sent bare is still resolvable there
+    static final int KNOWN_FINGERPRINTS = 64;
+
+    private final Map<UUID, long[]> buckets = new HashMap<>();
+    private final Map<UUID, LruCache<Long, Boolean>> knownFingerprints = new HashMap<>();
+
+    boolean tryAcquire(UUID sender, long now) {
+        // [tokens, last refill time]
+        long[] bucket = buckets.computeIfAbsent(sender, id -> new long[]{BURST, now});
+        long refilled = (now - bucket[1]) / REFILL_MS;
+        if (refilled > 0) {
+            bucket[0] = Math.min(BURST, bucket[0] + refilled);
+            bucket[1] += refilled * REFILL_MS;
+        }
+        if (bucket[0] == 0) {
+            return false;
+        }
+        bucket[0]--;
+        return true;
+    }
+
+    /**
+     * What {@code receiver} gets for {@code share}: the bare fingerprint if it was sent the
+     * title and artist before, the full track otherwise.
+     */
+    PeerTrackPayload payloadFor(UUID receiver, UUID sender, ShareTrackPayload share) {
+        LruCache<Long, Boolean> known = knownFingerprints.computeIfAbsent(
+                receiver, id -> new LruCache<>(KNOWN_FINGERPRINTS));
+        if (known.put(share.fingerprint(), Boolean.TRUE) != null) {
+            return new PeerTrackPayload(sender, share.fingerprint(), null, null);
+        }
+        return new PeerTrackPayload(sender, share.fingerprint(), share.title(), share.artist());
+    }
+
+    void forget(UUID player) {
+        buckets.remove(player);
+        knownFingerprints.remove(player);
+    }
+}
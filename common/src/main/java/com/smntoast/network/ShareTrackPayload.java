@@ -0,0 +1,33 @@
+package com.smntoast.network;
+
+import com.smntoast.SmnToast;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.Identifier;
+
+/**
+ * Client to server: the track the sending player just switched to.
+ */
+public record ShareTrackPayload(long fingerprint, String title, String artist) implements CustomPacketPayload {
+    public static final int MAX_TEXT_LENGTH = 64;
+    public static final Type<ShareTrackPayload> TYPE =
+            new Type<>(Identifier.fromNamespaceAndPath(SmnToast.MOD_ID, "share_track"));
+    public static final StreamCodec<FriendlyByteBuf, ShareTrackPayload> CODEC =
+            CustomPacketPayload.codec(ShareTrackPayload::write, ShareTrackPayload::new);
+
+    private ShareTrackPayload(FriendlyByteBuf buf) {
+        this(buf.readLong(), buf.readUtf(MAX_TEXT_LENGTH), buf.readUtf(MAX_TEXT_LENGTH));
+    }
+
+    private void write(FriendlyByteBuf buf) {
+        buf.writeLong(fingerprint);
+        buf.writeUtf(title, MAX_TEXT_LENGTH);
+        buf.writeUtf(artist, MAX_TEXT_LENGTH);
+    }
+
+    @Override
+    public Type<ShareTrackPayload> type() {
+        return TYPE;
+    }
+}
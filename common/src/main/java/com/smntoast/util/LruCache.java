@@ -0,0 +1,22 @@
+package com.smntoast.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Access-ordered map that evicts its least recently used entry once it holds more than
+ * {@code maxSize} entries. Not thread-safe.
+ */
+public class LruCache<K, V> extends LinkedHashMap<K, V> {
+    private final int maxSize;
+
+    public LruCache(int maxSize) {
+        super(16, 0.75f, true);
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > maxSize;
+    }
+}
@@ -0,0 +1,91 @@
+package com.smntoast.client.media;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HedgedTrackFetcherTest {
+    private static final TrackInfo TRACK = new TrackInfo("id", "Title", "Artist", "Album", true);
+    private static final int POLLS = 20;
+
+    private HedgedTrackFetcher hedged;
+
+    @AfterEach
+    void close() {
+        if (hedged != null) {
+            hedged.close();
+        }
+    }
+
+    @Test
+    void quickNullAnswerIsNotPenalizedNextToStalledBackend() {
+        // The stalled backend ranks first until both have enough samples
+        hedged = new HedgedTrackFetcher(List.of(
+                new HedgedTrackFetcher.Backend("stalled", new StalledFetcher(), () -> true),
+                new HedgedTrackFetcher.Backend("untitled", new UntitledFetcher(), () -> true)));
+
+        for (int i = 0; i < POLLS; i++) {
+            long start = System.nanoTime();
+            assertNull(hedged.fetchCurrentTrack());
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000L;
+            assertTrue(elapsedMs < 2000, "poll " + i + " took " + elapsedMs + " ms");
+        }
+
+        assertTrue(hedged.hedgeDelayMs(1) < 250, "untitled hedge delay: " + hedged.hedgeDelayMs(1));
+        assertTrue(hedged.hedgeDelayMs(0) <= CommandRunner.TIMEOUT_MS / 5, "stalled hedge delay: " + hedged.hedgeDelayMs(0));
+    }
+
+    @Test
+    void hedgeDelayStaysWellBelowCommandTimeout() {
+        hedged = new HedgedTrackFetcher(List.of(
+                new HedgedTrackFetcher.Backend("failing", new FailingFetcher(), () -> true),
+                new HedgedTrackFetcher.Backend("working", new WorkingFetcher(), () -> true)));
+
+        for (int i = 0; i < POLLS; i++) {
+            assertEquals(TRACK, hedged.fetchCurrentTrack());
+        }
+
+        // Every failure is a full-timeout sample, which must not become the hedge delay
+        assertTrue(hedged.hedgeDelayMs(0) <= CommandRunner.TIMEOUT_MS / 5, "failing hedge delay: " + hedged.hedgeDelayMs(0));
+    }
+
+    /** A player that is playing but reports no title yet. */
+    private static class UntitledFetcher implements TrackFetcher {
+        @Override
+        public TrackInfo fetchCurrentTrack() {
+            return null;
+        }
+    }
+
+    /** Blocks until cancelled, like a player that never answers over D-Bus. */
+    private static class StalledFetcher implements TrackFetcher {
+        @Override
+        public TrackInfo fetchCurrentTrack() {
+            try {
+                Thread.sleep(30_000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return TRACK;
+        }
+    }
+
+    private static class FailingFetcher implements TrackFetcher {
+        @Override
+        public TrackInfo fetchCurrentTrack() {
+            throw new IllegalStateException("backend broke");
+        }
+    }
+
+    private static class WorkingFetcher implements TrackFetcher {
+        @Override
+        public TrackInfo fetchCurrentTrack() {
+            return TRACK;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.smntoast.client.media;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replays a recorded MPRIS session through both Linux backends: Spotify plays "Under Pressure"
+ * with a paused Firefox alongside, then skips to "Cool Cat". Both tools were polled every 200 ms,
+ * and the skip first shows up in the poll recorded at {@value #CHANGE_RECORDED_AT_MS} ms.
+ */
+class LinuxTrackFetcherReplayTest {
+    private static final String TRACE = "/traces/mpris-track-change.jsonl";
+    private static final long CHANGE_RECORDED_AT_MS = 1408L;
+    private static final long POLL_MS = 50L;
+    private static final long MAX_PROBE_LATENCY_MS = 100L;
+
+    @AfterEach
+    void stopReplay() {
+        CommandTrace.stop();
+    }
+
+    @Test
+    void playerctlDetectsTrackChangeOnFirstPollAfterIt() throws Exception {
+        assertDetectsTrackChange(false);
+    }
+
+    @Test
+    void dbusDetectsTrackChangeOnFirstPollAfterIt() throws Exception {
+        assertDetectsTrackChange(true);
+    }
+
+    @Test
+    void trackChangeIsDetectedWithinOnePollOfRecordedTime() throws Exception {
+        // Timed replay against a clock that only moves with the polls and the replayed latencies
+        ManualClock clock = new ManualClock();
+        CommandTrace.startReplay(trace(), 1, clock);
+        LinuxTrackFetcher fetcher = new LinuxTrackFetcher(false);
+        String initial = fetcher.probe();
+        assertEquals("Under Pressure", fetcher.fetchCurrentTrack().getTitle());
+
+        long detectedAt = -1;
+        while (clock.now < 5000) {
+            clock.now += POLL_MS;
+            if (!initial.equals(fetcher.probe())) {
+                detectedAt = clock.now;
+                break;
+            }
+        }
+
+        assertEquals("Cool Cat", fetcher.fetchCurrentTrack().getTitle());
+        assertTrue(detectedAt >= CHANGE_RECORDED_AT_MS, "detected before the change: " + detectedAt + " ms");
+        // One poll interval plus the recorded latencies of the last probe before the change and the one that sees it
+        assertTrue(detectedAt - CHANGE_RECORDED_AT_MS < POLL_MS + 2 * MAX_PROBE_LATENCY_MS, "detection latency: "
+                + (detectedAt - CHANGE_RECORDED_AT_MS) + " ms");
+    }
+
+    private static void assertDetectsTrackChange(boolean useDbus) throws Exception {
+        CommandTrace.startReplay(trace(), 0);
+        LinuxTrackFetcher fetcher = new LinuxTrackFetcher(useDbus);
+        assertTrue(fetcher.isToolAvailable());
+        assertNull(fetcher.getStartupAlert());
+
+        String initial = fetcher.probe();
+        TrackInfo first = fetcher.fetchCurrentTrack();
+        assertEquals("/com/spotify/track/abc", first.getTrackId());
+        assertEquals("Under Pressure", first.getTitle());
+        assertEquals("Queen, David Bowie", first.getArtist());
+        assertEquals("Hot Space", first.getAlbum());
+        assertTrue(first.isPlaying());
+        // A time before the sample, so the position is read back without extrapolation
+        assertEquals(42_000L, first.getPositionMs(0));
+
+        // Sequential replay hands out the recorded answers in order, the skip is in the sixth
+        int polls = 0;
+        String key;
+        do {
+            key = fetcher.probe();
+            polls++;
+        } while (initial.equals(key) && polls < 10);
+        assertNotEquals(initial, key);
+        assertEquals(5, polls);
+
+        TrackInfo second = fetcher.fetchCurrentTrack();
+        assertEquals("/com/spotify/track/def", second.getTrackId());
+        assertEquals("Cool Cat", second.getTitle());
+        assertEquals("Queen, David Bowie", second.getArtist());
+        assertEquals("Hot Space", second.getAlbum());
+        assertEquals(0L, second.getPositionMs(0));
+        assertNotEquals(first, second);
+    }
+
+    private static Path trace() throws Exception {
+        return Path.of(LinuxTrackFetcherReplayTest.class.getResource(TRACE).toURI());
+    }
+
+    private static class ManualClock implements CommandTrace.Clock {
+        long now;
+
+        @Override
+        public long millis() {
+            return now;
+        }
+
+        @Override
+        public void sleep(long ms) {
+            now += ms;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.smntoast.client.media;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MpdTrackFetcherTest {
+    private static final long RECONNECT_DELAY_MS = 50L;
+    private static final long WAIT_MS = 5000L;
+
+    private FakeMpd mpd;
+    private MpdTrackFetcher fetcher;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        mpd = new FakeMpd();
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        if (fetcher != null) {
+            fetcher.close();
+        }
+        mpd.close();
+    }
+
+    @Test
+    void readsCurrentSongAndStatusAfterGreeting() {
+        mpd.play("music/queen/under-pressure.flac", "Under Pressure", "Queen", "Hot Space", "12.500");
+        fetcher = connect("127.0.0.1");
+
+        awaitTitle("Under Pressure");
+        TrackInfo track = fetcher.fetchCurrentTrack();
+        assertEquals("music/queen/under-pressure.flac", track.getTrackId());
+        assertEquals("Queen", track.getArtist());
+        assertEquals("Hot Space", track.getAlbum());
+        assertTrue(track.isPlaying());
+        assertEquals(12_500L, track.getPositionMs(0));
+        assertNull(fetcher.getStartupAlert());
+        assertEquals(List.of("command_list_begin", "currentsong", "status", "command_list_end", "idle player"),
+                mpd.commandsUntilIdle());
+    }
+
+    @Test
+    void idleWakeupRefreshesTrackWithoutPolling() throws Exception {
+        mpd.play("a.flac", "First", "Artist", "Album", "0.0");
+        fetcher = connect("127.0.0.1");
+        awaitTitle("First");
+
+        // Nothing is asked while MPD reports no change
+        Thread.sleep(200);
+        assertEquals(1, mpd.commandLists());
+
+        mpd.play("b.flac", "Second", "Artist", "Album", "0.0");
+        mpd.wakeIdle();
+        awaitTitle("Second");
+        assertEquals(2, mpd.commandLists());
+
+        mpd.pause();
+        mpd.wakeIdle();
+        await(() -> !fetcher.fetchCurrentTrack().isPlaying());
+    }
+
+    @Test
+    void ackDropsConnectionAndRetries() {
+        mpd.play("a.flac", "Title", "Artist", "Album", "0.0");
+        mpd.ackNextCommandList();
+        fetcher = connect("127.0.0.1");
+
+        // The first command list fails, the retry connects again and reads the track
+        awaitTitle("Title");
+        assertNull(fetcher.getStartupAlert());
+        assertEquals(2, mpd.connections());
+        assertEquals(2, mpd.commandLists());
+    }
+
+    @Test
+    void reconnectsAfterServerDropsConnection() throws Exception {
+        mpd.play("a.flac", "Before", "Artist", "Album", "0.0");
+        fetcher = connect("127.0.0.1");
+        awaitTitle("Before");
+
+        mpd.play("b.flac", "After", "Artist", "Album", "0.0");
+        mpd.dropConnections();
+        awaitTitle("After");
+        assertEquals(2, mpd.connections());
+    }
+
+    @Test
+    void sendsPasswordFromMpdHostPrefix() {
+        mpd.requirePassword("s3cr\"et");
+        mpd.play("a.flac", "Title", "Artist", "Album", "0.0");
+        fetcher = connect("s3cr\"et@127.0.0.1");
+
+        awaitTitle("Title");
+        assertEquals("password \"s3cr\\\"et\"", mpd.commandsUntilIdle().getFirst());
+    }
+
+    @Test
+    void wrongPasswordIsReportedAndNoTrackIsRead() {
+        mpd.requirePassword("right");
+        mpd.play("a.flac", "Title", "Artist", "Album", "0.0");
+        fetcher = connect("wrong@127.0.0.1");
+
+        await(() -> fetcher.getStartupAlert() != null);
+        assertNull(fetcher.fetchCurrentTrack());
+        assertEquals(0, mpd.commandLists());
+    }
+
+    private MpdTrackFetcher connect(String host) {
+        return new MpdTrackFetcher(host, String.valueOf(mpd.port()), RECONNECT_DELAY_MS);
+    }
+
+    private void awaitTitle(String title) {
+        await(() -> {
+            TrackInfo track = fetcher.fetchCurrentTrack();
+            return track != null && title.equals(track.getTitle());
+        });
+        assertNotNull(fetcher.fetchCurrentTrack());
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met within " + WAIT_MS + " ms");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    /**
+     * Stand-in for MPD speaking just enough of its protocol: the greeting, {@code password},
+     * the {@code currentsong}/{@code status} command list and {@code idle player}.
+     */
+    private static class FakeMpd {
+        private final ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        private final List<Socket> clients = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> commands = Collections.synchronizedList(new ArrayList<>());
+        private final Semaphore idleWakeups = new Semaphore(0);
+        private volatile Map<String, String> state = Map.of("state", "stop");
+        private volatile String password;
+        private volatile boolean ackNext;
+        private volatile int connections;
+        private volatile int commandLists;
+
+        FakeMpd() throws IOException {
+            Thread acceptor = new Thread(this::accept, "Fake-MPD");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int port() {
+            return server.getLocalPort();
+        }
+
+        void play(String file, String title, String artist, String album, String elapsed) {
+            Map<String, String> fields = new LinkedHashMap<>();
+            fields.put("file", file);
+            fields.put("Title", title);
+            fields.put("Artist", artist);
+            fields.put("Album", album);
+            fields.put("state", "play");
+            fields.put("elapsed", elapsed);
+            state = fields;
+        }
+
+        void pause() {
+            Map<String, String> fields = new LinkedHashMap<>(state);
+            fields.put("state", "pause");
+            state = fields;
+        }
+
+        void requirePassword(String password) {
+            this.password = password;
+        }
+
+        void ackNextCommandList() {
+            ackNext = true;
+        }
+
+        void wakeIdle() {
+            idleWakeups.release();
+        }
+
+        void dropConnections() throws IOException {
+            synchronized (clients) {
+                for (Socket client : clients) {
+                    client.close();
+                }
+            }
+        }
+
+        int connections() {
+            return connections;
+        }
+
+        int commandLists() {
+            return commandLists;
+        }
+
+        List<String> commandsUntilIdle() {
+            synchronized (commands) {
+                return List.copyOf(commands.subList(0, commands.indexOf("idle player") + 1));
+            }
+        }
+
+        void close() throws IOException {
+            server.close();
+            dropConnections();
+        }
+
+        private void accept() {
+            while (!server.isClosed()) {
+                try {
+                    Socket client = server.accept();
+                    clients.add(client);
+                    connections++;
+                    Thread session = new Thread(() -> serve(client), "Fake-MPD-Session");
+                    session.setDaemon(true);
+                    session.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(Socket client) {
+            try (client) {
+                BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+                PrintWriter out = new PrintWriter(client.getOutputStream(), true, StandardCharsets.UTF_8);
+                out.print("OK MPD 0.23.5\n");
+                out.flush();
+
+                boolean authorized = password == null;
+                String line;
+                while ((line = in.readLine()) != null) {
+                    commands.add(line);
+                    if (line.startsWith("password ")) {
+                        authorized = line.equals("password " + quote(password));
+                        out.print(authorized ? "OK\n" : "ACK [3@0] {password} incorrect password\n");
+                    } else if (!authorized) {
+                        out.print("ACK [4@0] {" + line + "} you don't have permission for \"" + line + "\"\n");
+                    } else if (line.equals("command_list_end")) {
+                        commandLists++;
+                        if (ackNext) {
+                            ackNext = false;
+                            out.print("ACK [50@0] {currentsong} No such song\n");
+                        } else {
+                            state.forEach((key, value) -> out.print(key + ": " + value + "\n"));
+                            out.print("OK\n");
+                        }
+                    } else if (line.equals("idle player")) {
+                        out.flush();
+                        while (!idleWakeups.tryAcquire(50, TimeUnit.MILLISECONDS)) {
+                            if (client.isClosed()) {
+                                return;
+                            }
+                        }
+                        out.print("changed: player\nOK\n");
+                    }
+                    out.flush();
+                }
+            } catch (IOException | InterruptedException ignored) {
+            } finally {
+                clients.remove(client);
+            }
+        }
+
+        private static String quote(String value) {
+            return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.smntoast.client.network;
+
+import com.smntoast.client.media.TrackInfo;
+import com.smntoast.network.PeerTrackPayload;
+import com.smntoast.network.ShareTrackPayload;
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.FriendlyByteBuf;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NowPlayingShareClientTest {
+    private static final long TICK_MS = 50L;
+
+    private final List<ShareTrackPayload> sent = new ArrayList<>();
+    private long now = 1_000_000L;
+    private final NowPlayingShareClient client = new NowPlayingShareClient(sent::add, () -> true, true, () -> now);
+
+    @Test
+    void heavySkippingStaysWithinBandwidthBudget() {
+        // One minute of skipping to the next track every 250 ms, ticked at 20 TPS
+        long durationMs = 60_000L;
+        long skipMs = 250L;
+        for (long t = 0; t < durationMs; t += TICK_MS) {
+            client.tick(track((int) (t / skipMs)));
+            now += TICK_MS;
+        }
+
+        long bytes = 0;
+        for (ShareTrackPayload payload : sent) {
+            bytes += encodedSize(payload);
+        }
+        double bytesPerSecond = bytes * 1000.0 / durationMs;
+
+        // 240 track changes coalesced to at most one share per 2 s
+        assertTrue(sent.size() <= durationMs / 2000 + 1, "shares sent: " + sent.size());
+        assertTrue(bytesPerSecond < 50, "upload rate: " + bytesPerSecond + " B/s");
+    }
+
+    @Test
+    void settledTrackIsSentOnceAfterSkipping() {
+        for (int i = 0; i < 10; i++) {
+            client.tick(track(i));
+            now += 100L;
+        }
+        for (int i = 0; i < 100; i++) {
+            client.tick(track(9));
+            now += TICK_MS;
+        }
+
+        assertEquals(2, sent.size());
+        assertEquals(track(9).getTitle(), sent.getLast().title());
+    }
+
+    @Test
+    void knownFingerprintResolvesWithoutText() {
+        UUID peer = UUID.randomUUID();
+        client.onPeerTrack(new PeerTrackPayload(peer, 42L, "Title", "Artist"));
+
+        assertEquals(new NowPlayingShareClient.PeerTrack("Title", "Artist"),
+                client.onPeerTrack(new PeerTrackPayload(peer, 42L, null, null)));
+        assertNull(client.onPeerTrack(new PeerTrackPayload(peer, 43L, null, null)));
+    }
+
+    @Test
+    void payloadsRoundTrip() {
+        ShareTrackPayload share = new ShareTrackPayload(7L, "Title", "Artist");
+        assertEquals(share, roundTrip(share));
+
+        UUID peer = UUID.randomUUID();
+        PeerTrackPayload full = new PeerTrackPayload(peer, 7L, "Title", "Artist");
+        PeerTrackPayload bare = new PeerTrackPayload(peer, 7L, null, null);
+        assertEquals(full, roundTrip(full));
+        assertEquals(bare, roundTrip(bare));
+        // UUID, fingerprint and the has-text flag
+        assertEquals(25, encodedSize(bare));
+    }
+
+    private static TrackInfo track(int index) {
+        return new TrackInfo("/track/" + index, "A fairly typical song title " + index, "Some Artist", "Album", true);
+    }
+
+    private static int encodedSize(ShareTrackPayload payload) {
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+        ShareTrackPayload.CODEC.encode(buf, payload);
+        return buf.readableBytes();
+    }
+
+    private static int encodedSize(PeerTrackPayload payload) {
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+        PeerTrackPayload.CODEC.encode(buf, payload);
+        return buf.readableBytes();
+    }
+
+    private static ShareTrackPayload roundTrip(ShareTrackPayload payload) {
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+        ShareTrackPayload.CODEC.encode(buf, payload);
+        return ShareTrackPayload.CODEC.decode(buf);
+    }
+
+    private static PeerTrackPayload roundTrip(PeerTrackPayload payload) {
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+        PeerTrackPayload.CODEC.encode(buf, payload);
+        return PeerTrackPayload.CODEC.decode(buf);
+    }
+}
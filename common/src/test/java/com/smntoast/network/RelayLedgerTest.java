@@ -0,0 +1,100 @@
+package com.smntoast.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RelayLedgerTest {
+    private final RelayLedger ledger = new RelayLedger();
+    private final UUID sender = UUID.randomUUID();
+    private final UUID receiver = UUID.randomUUID();
+    private long now = 1_000_000L;
+
+    @Test
+    void burstIsAllowedThenLimited() {
+        for (int i = 0; i < RelayLedger.BURST; i++) {
+            assertTrue(ledger.tryAcquire(sender, now), "share " + i);
+        }
+        assertFalse(ledger.tryAcquire(sender, now));
+        // Budgets are per sender
+        assertTrue(ledger.tryAcquire(receiver, now));
+    }
+
+    @Test
+    void tokensRefillOnePerIntervalUpToBurst() {
+        drain();
+        now += RelayLedger.REFILL_MS - 1;
+        assertFalse(ledger.tryAcquire(sender, now));
+        now += 1;
+        assertTrue(ledger.tryAcquire(sender, now));
+        assertFalse(ledger.tryAcquire(sender, now));
+
+        // A long pause refills no more than the burst
+        now += 100 * RelayLedger.REFILL_MS;
+        drain();
+        assertFalse(ledger.tryAcquire(sender, now));
+    }
+
+    @Test
+    void partialIntervalCarriesOverToNextRefill() {
+        drain();
+        now += RelayLedger.REFILL_MS * 3 / 2;
+        assertTrue(ledger.tryAcquire(sender, now));
+        // Half an interval was already waited out
+        now += RelayLedger.REFILL_MS / 2;
+        assertTrue(ledger.tryAcquire(sender, now));
+    }
+
+    @Test
+    void sustainedSpamIsHeldToRefillRate() {
+        long durationMs = 60_000L;
+        int relayed = 0;
+        for (long t = 0; t < durationMs; t += 50L) {
+            if (ledger.tryAcquire(sender, now + t)) {
+                relayed++;
+            }
+        }
+        assertEquals(RelayLedger.BURST + durationMs / RelayLedger.REFILL_MS - 1, relayed);
+    }
+
+    @Test
+    void fullTrackIsSentOncePerReceiverThenBare() {
+        ShareTrackPayload share = new ShareTrackPayload(42L, "Title", "Artist");
+
+        PeerTrackPayload first = ledger.payloadFor(receiver, sender, share);
+        assertEquals(new PeerTrackPayload(sender, 42L, "Title", "Artist"), first);
+
+        PeerTrackPayload again = ledger.payloadFor(receiver, sender, share);
+        assertEquals(sender, again.player());
+        assertEquals(42L, again.fingerprint());
+        assertNull(again.title());
+        assertNull(again.artist());
+
+        // Another receiver has not seen it yet
+        assertTrue(ledger.payloadFor(UUID.randomUUID(), sender, share).hasText());
+    }
+
+    @Test
+    void fingerprintIsResentInFullAfterEvictionOrReconnect() {
+        ShareTrackPayload share = new ShareTrackPayload(42L, "Title", "Artist");
+        ledger.payloadFor(receiver, sender, share);
+        for (long fingerprint = 0; fingerprint < RelayLedger.KNOWN_FINGERPRINTS; fingerprint++) {
+            ledger.payloadFor(receiver, sender, new ShareTrackPayload(1000L + fingerprint, "Other", "Artist"));
+        }
+        assertTrue(ledger.payloadFor(receiver, sender, share).hasText());
+
+        ledger.forget(receiver);
+        assertTrue(ledger.payloadFor(receiver, sender, share).hasText());
+    }
+
+    private void drain() {
+        while (ledger.tryAcquire(sender, now)) {
+            // Empty the bucket
+        }
+    }
+}
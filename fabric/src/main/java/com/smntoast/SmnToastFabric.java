@@ -0,0 +1,35 @@
+package com.smntoast;
+
+import com.smntoast.network.NowPlayingRelay;
+import com.smntoast.network.PeerTrackPayload;
+import com.smntoast.network.ShareTrackPayload;
+import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+import net.minecraft.server.level.ServerPlayer;
+
+public class SmnToastFabric implements ModInitializer {
+    @Override
+    public void onInitialize() {
+        PayloadTypeRegistry.serverboundPlay().register(ShareTrackPayload.TYPE, ShareTrackPayload.CODEC);
+        PayloadTypeRegistry.clientboundPlay().register(PeerTrackPayload.TYPE, PeerTrackPayload.CODEC);
+
+        NowPlayingRelay relay = new NowPlayingRelay(new NowPlayingRelay.Sink() {
+            @Override
+            public boolean canReceive(ServerPlayer player) {
+                return ServerPlayNetworking.canSend(player, PeerTrackPayload.TYPE);
+            }
+
+            @Override
+            public void send(ServerPlayer player, PeerTrackPayload payload) {
+                ServerPlayNetworking.send(player, payload);
+            }
+        });
+
+        ServerPlayNetworking.registerGlobalReceiver(ShareTrackPayload.TYPE,
+            (payload, context) -> relay.onShare(context.player(), payload));
+        ServerPlayConnectionEvents.DISCONNECT.register(
+            (handler, server) -> relay.onDisconnect(handler.getPlayer().getUUID()));
+    }
+}
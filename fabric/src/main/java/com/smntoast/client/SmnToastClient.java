@@ -2,9 +2,15 @@ package com.smntoast.client;
 
 import com.smntoast.SmnToast;
 import com.mojang.blaze3d.platform.InputConstants;
+import com.smntoast.client.network.NowPlayingShareClient;
+import com.smntoast.network.PeerTrackPayload;
+import com.smntoast.network.ShareTrackPayload;
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.fabricmc.fabric.api.client.keymapping.v1.KeyMappingHelper;
+import net.fabricmc.fabric.api.client.message.v1.ClientReceiveMessageEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
 import net.minecraft.client.KeyMapping;
 import net.minecraft.resources.Identifier;
 import org.lwjgl.glfw.GLFW;
@@ -23,9 +29,27 @@ public class SmnToastClient implements ClientModInitializer {
             smnToastCategory
         ));
 
-        SmnToastClientRuntime runtime = new SmnToastClientRuntime(showMusicToastKey);
+        NowPlayingShareClient shareClient = new NowPlayingShareClient(
+            ClientPlayNetworking::send,
+            () -> ClientPlayNetworking.canSend(ShareTrackPayload.TYPE)
+        );
+
+        SmnToastClientRuntime runtime = new SmnToastClientRuntime(showMusicToastKey, shareClient);
         runtime.initialize();
 
+        // Without a receiver the server sees the channel as closed and sends this player nothing
+        if (NowPlayingShareClient.ENABLED) {
+            ClientPlayNetworking.registerGlobalReceiver(PeerTrackPayload.TYPE,
+                (payload, context) -> runtime.onPeerTrack(context.client(), payload));
+        }
+
+        ClientReceiveMessageEvents.GAME.register((message, overlay) -> {
+            if (overlay) {
+                runtime.onServerOverlayMessage();
+            }
+        });
+
         ClientTickEvents.END_CLIENT_TICK.register(runtime::onClientTick);
+        ClientLifecycleEvents.CLIENT_STOPPING.register(client -> runtime.shutdown());
     }
 }
@@ -0,0 +1,53 @@
+package com.smntoast;
+
+import com.smntoast.client.network.NowPlayingShareClient;
+import com.smntoast.network.NowPlayingRelay;
+import com.smntoast.network.PeerTrackPayload;
+import com.smntoast.network.ShareTrackPayload;
+import net.minecraft.server.level.ServerPlayer;
+import net.neoforged.api.distmarker.Dist;
+import net.neoforged.bus.api.IEventBus;
+import net.neoforged.fml.common.Mod;
+import net.neoforged.neoforge.common.NeoForge;
+import net.neoforged.neoforge.event.entity.player.PlayerEvent;
+import net.neoforged.neoforge.network.PacketDistributor;
+import net.neoforged.neoforge.network.event.RegisterPayloadHandlersEvent;
+import net.neoforged.neoforge.network.registration.PayloadRegistrar;
+
+@Mod("smn_toast")
+public class SmnToastNeoForgeCommon {
+    private final NowPlayingRelay relay = new NowPlayingRelay(new NowPlayingRelay.Sink() {
+        @Override
+        public boolean canReceive(ServerPlayer player) {
+            return player.connection.hasChannel(PeerTrackPayload.TYPE);
+        }
+
+        @Override
+        public void send(ServerPlayer player, PeerTrackPayload payload) {
+            PacketDistributor.sendToPlayer(player, payload);
+        }
+    });
+
+    private final Dist dist;
+
+    public SmnToastNeoForgeCommon(IEventBus modBus, Dist dist) {
+        this.dist = dist;
+        modBus.addListener(this::registerPayloads);
+        NeoForge.EVENT_BUS.addListener(this::onPlayerLoggedOut);
+    }
+
+    private void registerPayloads(RegisterPayloadHandlersEvent event) {
+        PayloadRegistrar registrar = event.registrar("1").optional();
+        registrar.playToServer(ShareTrackPayload.TYPE, ShareTrackPayload.CODEC,
+            (payload, context) -> relay.onShare((ServerPlayer) context.player(), payload));
+        // A client that has not opted in leaves the channel unnegotiated, so the relay skips it.
+        // The integrated server shares this registration and relays only if its host opted in.
+        if (dist.isDedicatedServer() || NowPlayingShareClient.ENABLED) {
+            registrar.playToClient(PeerTrackPayload.TYPE, PeerTrackPayload.CODEC);
+        }
+    }
+
+    private void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        relay.onDisconnect(event.getEntity().getUUID());
+    }
+}
@@ -2,6 +2,9 @@ package com.smntoast.client;
 
 import com.mojang.blaze3d.platform.InputConstants;
 import com.smntoast.SmnToast;
+import com.smntoast.client.network.NowPlayingShareClient;
+import com.smntoast.network.PeerTrackPayload;
+import com.smntoast.network.ShareTrackPayload;
 import net.minecraft.client.KeyMapping;
 import net.minecraft.client.Minecraft;
 import net.minecraft.resources.Identifier;
@@ -9,20 +12,34 @@ import net.neoforged.api.distmarker.Dist;
 import net.neoforged.bus.api.IEventBus;
 import net.neoforged.fml.common.Mod;
 import net.neoforged.fml.event.lifecycle.FMLClientSetupEvent;
+import net.neoforged.neoforge.client.event.ClientChatReceivedEvent;
 import net.neoforged.neoforge.client.event.ClientTickEvent;
 import net.neoforged.neoforge.client.event.RegisterKeyMappingsEvent;
+import net.neoforged.neoforge.client.network.ClientPacketDistributor;
+import net.neoforged.neoforge.client.network.event.RegisterClientPayloadHandlersEvent;
 import net.neoforged.neoforge.common.NeoForge;
+import net.neoforged.neoforge.event.GameShuttingDownEvent;
 import org.lwjgl.glfw.GLFW;
 
 @Mod(value = "smn_toast", dist = Dist.CLIENT)
 public class SmnToastNeoForge {
     private KeyMapping showMusicToastKey;
     private SmnToastClientRuntime runtime;
+    private final NowPlayingShareClient shareClient = new NowPlayingShareClient(
+        ClientPacketDistributor::sendToServer,
+        () -> Minecraft.getInstance().getConnection() != null
+            && Minecraft.getInstance().getConnection().hasChannel(ShareTrackPayload.TYPE)
+    );
 
     public SmnToastNeoForge(IEventBus modBus) {
         modBus.addListener(this::registerKeyMappings);
         modBus.addListener(this::onClientSetup);
+        if (NowPlayingShareClient.ENABLED) {
+            modBus.addListener(this::registerClientPayloadHandlers);
+        }
         NeoForge.EVENT_BUS.addListener(this::onClientTick);
+        NeoForge.EVENT_BUS.addListener(this::onGameShuttingDown);
+        NeoForge.EVENT_BUS.addListener(this::onSystemMessage);
     }
 
     private void registerKeyMappings(RegisterKeyMappingsEvent event) {
@@ -42,10 +59,30 @@ public class SmnToastNeoForge {
     }
 
     private void onClientSetup(FMLClientSetupEvent event) {
-        runtime = new SmnToastClientRuntime(showMusicToastKey);
+        runtime = new SmnToastClientRuntime(showMusicToastKey, shareClient);
         runtime.initialize();
     }
 
+    private void registerClientPayloadHandlers(RegisterClientPayloadHandlersEvent event) {
+        event.register(PeerTrackPayload.TYPE, (payload, context) -> {
+            if (runtime != null) {
+                runtime.onPeerTrack(Minecraft.getInstance(), payload);
+            }
+        });
+    }
+
+    private void onGameShuttingDown(GameShuttingDownEvent event) {
+        if (runtime != null) {
+            runtime.shutdown();
+        }
+    }
+
+    private void onSystemMessage(ClientChatReceivedEvent.System event) {
+        if (runtime != null && event.isOverlay()) {
+            runtime.onServerOverlayMessage();
+        }
+    }
+
     private void onClientTick(ClientTickEvent.Post event) {
         if (runtime != null) {
             runtime.onClientTick(Minecraft.getInstance());